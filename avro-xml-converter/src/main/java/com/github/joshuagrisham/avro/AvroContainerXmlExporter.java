@@ -0,0 +1,259 @@
+package com.github.joshuagrisham.avro;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.SeekableFileInput;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+
+/**
+ * Converts one (large) Avro container file to XML using all cores, by splitting the file into byte ranges and
+ * converting the ranges concurrently on a work-stealing pool.
+ * <p>
+ * Container files are written as blocks which each start after a sync marker, so (same as Hadoop's input splits) each
+ * range converts the records of every block whose sync marker is within the range, independent of all other ranges.
+ * The XML of each range is then either concatenated in order into one output (the same records, in the same order,
+ * as {@link AvroXmlDataConverter#convertAllFromContainer}) or written as one of N sharded files.
+ */
+public class AvroContainerXmlExporter {
+
+    // Ranges should be a lot bigger than a block (64 KiB by default) but small enough for the pool to balance the work
+    public static final long DEFAULT_SPLIT_SIZE = 8L * 1024 * 1024;
+
+    /**
+     * A range of the container file, which converts the records of the blocks starting within it.
+     */
+    private record Range(long start, long end) {}
+
+    /**
+     * Converts all records of the container file to XML, written to the output stream as UTF-8 in the same order as
+     * they are in the file.
+     * <p>
+     * The XML of ranges which finish early is held in memory until all ranges before it have been written, so at most
+     * twice as many ranges as there are threads are converted ahead of the output.
+     * @param containerFile
+     * @param readerSchema the schema to read the records as, or null to read them as the (writer) schema of the file
+     * @param outputStream
+     * @param useAvroEncoderSyntax
+     * @param usePrettyPrinter
+     * @param rootElementName name of the root element wrapping all records in a single document, or null to write
+     *                        one document per record (separated by a newline)
+     * @param parallelism number of threads to convert the ranges on
+     * @param splitSize size (in bytes) of each range
+     * @return the number of records converted
+     * @throws IOException
+     */
+    public static long export(File containerFile, Schema readerSchema, OutputStream outputStream, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, String rootElementName, int parallelism, long splitSize) throws IOException {
+        List<Range> ranges = split(containerFile.length(), splitSize);
+        ExecutorService pool = Executors.newWorkStealingPool(parallelism);
+        try {
+            long count = 0;
+            Deque<Future<Fragment>> pending = new ArrayDeque<>();
+            Iterator<Range> nextRanges = ranges.iterator();
+            while (nextRanges.hasNext() || !pending.isEmpty()) {
+                while (nextRanges.hasNext() && pending.size() < parallelism * 2) {
+                    Range range = nextRanges.next();
+                    pending.add(pool.submit(() -> {
+                        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                        long rangeCount = convertRange(containerFile, readerSchema, range, buffer, useAvroEncoderSyntax, usePrettyPrinter, rootElementName);
+                        return new Fragment(buffer, rangeCount);
+                    }));
+                }
+                Fragment fragment = get(pending.remove());
+                if (fragment.count() == 0)
+                    continue;
+                // The root element is only started once there is a record, since without any it is an empty element
+                if (count == 0 && rootElementName != null)
+                    write(outputStream, AvroXmlDataConverter.rootStartTag(rootElementName));
+                fragment.xml().writeTo(outputStream);
+                count += fragment.count();
+            }
+
+            if (rootElementName != null) {
+                if (count == 0)
+                    write(outputStream, AvroXmlDataConverter.emptyRootElement(rootElementName, usePrettyPrinter));
+                else
+                    write(outputStream, AvroXmlDataConverter.rootEndTag(rootElementName, usePrettyPrinter));
+            }
+            outputStream.flush();
+            return count;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static long export(File containerFile, Schema readerSchema, OutputStream outputStream, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        return export(containerFile, readerSchema, outputStream, useAvroEncoderSyntax, usePrettyPrinter, rootElementName, Runtime.getRuntime().availableProcessors(), DEFAULT_SPLIT_SIZE);
+    }
+
+    /**
+     * The XML of one range and how many records it has.
+     */
+    private record Fragment(ByteArrayOutputStream xml, long count) {}
+
+    /**
+     * Converts all records of the container file to XML, written as UTF-8 to one file per shard. The file is split
+     * into one range per shard, so each shard has (roughly) the same amount of data and the shards in the given order
+     * have the records in the same order as they are in the file. Each shard is a complete XML output by itself, i.e.
+     * has its own root element (if any).
+     * @param containerFile
+     * @param readerSchema the schema to read the records as, or null to read them as the (writer) schema of the file
+     * @param shardPaths the file to write each shard to (empty shards are still created)
+     * @param useAvroEncoderSyntax
+     * @param usePrettyPrinter
+     * @param rootElementName name of the root element wrapping all records of each shard in a single document, or null
+     *                        to write one document per record (separated by a newline)
+     * @param parallelism number of threads to convert the shards on
+     * @return the number of records converted
+     * @throws IOException
+     */
+    public static long exportSharded(File containerFile, Schema readerSchema, List<Path> shardPaths, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, String rootElementName, int parallelism) throws IOException {
+        long length = containerFile.length();
+        int shards = shardPaths.size();
+        ExecutorService pool = Executors.newWorkStealingPool(parallelism);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < shards; i++) {
+                Range range = new Range(length * i / shards, length * (i + 1) / shards);
+                Path shardPath = shardPaths.get(i);
+                results.add(pool.submit(() -> {
+                    try (DataFileReader<GenericRecord> fileReader = open(containerFile, readerSchema);
+                         OutputStream shardStream = new BufferedOutputStream(Files.newOutputStream(shardPath))) {
+                        Writer writer = new OutputStreamWriter(shardStream, StandardCharsets.UTF_8);
+                        long shardCount = AvroXmlDataConverter.convertAll(records(fileReader, range), writer, useAvroEncoderSyntax, usePrettyPrinter, rootElementName);
+                        writer.flush();
+                        return shardCount;
+                    }
+                }));
+            }
+            long count = 0;
+            for (Future<Long> result : results)
+                count += get(result);
+            return count;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static long exportSharded(File containerFile, Schema readerSchema, List<Path> shardPaths, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        return exportSharded(containerFile, readerSchema, shardPaths, useAvroEncoderSyntax, usePrettyPrinter, rootElementName, Math.min(shardPaths.size(), Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Splits the file into ranges of the split size (the last range has whatever is left).
+     */
+    private static List<Range> split(long length, long splitSize) {
+        if (splitSize <= 0)
+            throw new IllegalArgumentException("The split size must be positive.");
+        List<Range> ranges = new ArrayList<>();
+        for (long start = 0; start < length; start += splitSize)
+            ranges.add(new Range(start, Math.min(start + splitSize, length)));
+        return ranges;
+    }
+
+    /**
+     * Converts the records of the range to an XML fragment written to the output stream as UTF-8, either as one
+     * document per record or (with a root element) as the records within the root element, without its start and end
+     * tags, so that the fragments of all ranges can be concatenated within a single root element.
+     */
+    private static long convertRange(File containerFile, Schema readerSchema, Range range, OutputStream outputStream, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        try (DataFileReader<GenericRecord> fileReader = open(containerFile, readerSchema)) {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            Iterator<GenericRecord> records = records(fileReader, range);
+            long count;
+            if (rootElementName == null) {
+                count = AvroXmlDataConverter.convertAll(records, writer, useAvroEncoderSyntax, usePrettyPrinter, null);
+            } else {
+                count = AvroXmlDataConverter.convertAllWithinRoot(records, writer, useAvroEncoderSyntax, usePrettyPrinter, false);
+            }
+            writer.flush();
+            return count;
+        }
+    }
+
+    private static void write(OutputStream outputStream, String text) throws IOException {
+        outputStream.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens the container file with its own reader, so that each range can seek independently.
+     */
+    private static DataFileReader<GenericRecord> open(File containerFile, Schema readerSchema) throws IOException {
+        GenericDatumReader<GenericRecord> datumReader = new GenericDatumReader<>();
+        if (readerSchema != null)
+            datumReader.setExpected(readerSchema);
+        return new DataFileReader<>(new SeekableFileInput(containerFile), datumReader);
+    }
+
+    /**
+     * @return an iterator over the records of the blocks starting within the range, which are all read into the same
+     * record (i.e. each record is only valid until the next one is read)
+     */
+    private static Iterator<GenericRecord> records(DataFileReader<GenericRecord> fileReader, Range range) throws IOException {
+        // Skip to the first block after the start of the range (the header ends with a sync marker, so the first range
+        // starts with the first block)
+        fileReader.sync(range.start());
+        return new Iterator<GenericRecord>() {
+            private GenericRecord record;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    // Blocks whose sync marker is after the end of the range belong to the next range
+                    return fileReader.hasNext() && !fileReader.pastSync(range.end());
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Failed to parse Avro data.", e);
+                }
+            }
+
+            @Override
+            public GenericRecord next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                try {
+                    record = fileReader.next(record);
+                    return record;
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Failed to parse Avro data.", e);
+                }
+            }
+        };
+    }
+
+    private static <T> T get(Future<T> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting the Avro container file.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException)
+                throw ioException;
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IOException("Failed to convert the Avro container file.", e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.github.joshuagrisham.avro;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.io.JsonDecoder;
+import org.apache.avro.io.JsonEncoder;
+import org.apache.avro.specific.SpecificDatumWriter;
+
+/**
+ * The datum readers and writers, and JSON encoders and decoders, of one Avro schema, so that they are only built once
+ * per schema instead of for every record (they resolve the schema into their own state, which costs a lot for wide
+ * schemas). Readers, encoders and decoders are not thread-safe, so each thread has its own bounded (LRU) cache of them.
+ * <p>
+ * The JSON encoders and decoders are reused by pointing them at the next stream with their <code>configure</code>
+ * methods, since (unlike the binary ones) the factories do not take an instance to reuse.
+ */
+final class AvroDatumCodecs {
+
+    public static final int MAX_SCHEMAS_PER_THREAD = 16;
+
+    private static final ThreadLocal<Map<Schema, AvroDatumCodecs>> CODECS = ThreadLocal.withInitial(() ->
+        // access-ordered so that the least recently used schema is the eldest
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Schema, AvroDatumCodecs> eldest) {
+                return size() > MAX_SCHEMAS_PER_THREAD;
+            }
+        });
+
+    // Binary decoders do not depend on the schema, so each thread just reuses one of each kind
+    private static final ThreadLocal<BinaryDecoder> BINARY_DECODER = new ThreadLocal<>();
+    private static final ThreadLocal<BinaryDecoder> DIRECT_BINARY_DECODER = new ThreadLocal<>();
+
+    private final Schema schema;
+    private DatumWriter<GenericRecord> genericWriter;
+    private DatumWriter<GenericRecord> specificWriter;
+    private DatumReader<GenericRecord> reader;
+    private JsonEncoder jsonEncoder;
+    private JsonDecoder jsonDecoder;
+
+    private AvroDatumCodecs(Schema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * @param schema
+     * @return the current thread's codecs for the schema
+     */
+    static AvroDatumCodecs get(Schema schema) {
+        return CODECS.get().computeIfAbsent(schema, AvroDatumCodecs::new);
+    }
+
+    DatumWriter<GenericRecord> writer(boolean specific) {
+        if (specific) {
+            if (specificWriter == null)
+                specificWriter = new SpecificDatumWriter<>(schema);
+            return specificWriter;
+        }
+        if (genericWriter == null)
+            genericWriter = new GenericDatumWriter<>(schema);
+        return genericWriter;
+    }
+
+    DatumReader<GenericRecord> reader() {
+        if (reader == null)
+            reader = new GenericDatumReader<>(schema);
+        return reader;
+    }
+
+    /**
+     * @return the JSON encoder for the schema, writing to the given stream
+     */
+    JsonEncoder jsonEncoder(OutputStream outputStream) throws IOException {
+        if (jsonEncoder == null)
+            jsonEncoder = EncoderFactory.get().jsonEncoder(schema, outputStream);
+        else
+            jsonEncoder.configure(outputStream);
+        return jsonEncoder;
+    }
+
+    /**
+     * Discards the JSON encoder (e.g. after a failed write), since it could be left part way through the schema.
+     */
+    void resetJsonEncoder() {
+        jsonEncoder = null;
+    }
+
+    /**
+     * @return the JSON decoder for the schema, reading from the start of the given stream
+     */
+    JsonDecoder jsonDecoder(InputStream inputStream) throws IOException {
+        if (jsonDecoder == null)
+            jsonDecoder = DecoderFactory.get().jsonDecoder(schema, inputStream);
+        else
+            jsonDecoder.configure(inputStream);
+        return jsonDecoder;
+    }
+
+    /**
+     * @return the current thread's binary decoder, reading the given part of the byte array
+     */
+    static BinaryDecoder binaryDecoder(byte[] bytes, int offset, int length) {
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(bytes, offset, length, BINARY_DECODER.get());
+        BINARY_DECODER.set(decoder);
+        return decoder;
+    }
+
+    /**
+     * @return the current thread's unbuffered binary decoder, reading from the given stream (it does not read past the
+     * end of the datum, so the stream can be read further by the caller)
+     */
+    static BinaryDecoder directBinaryDecoder(InputStream inputStream) {
+        BinaryDecoder decoder = DecoderFactory.get().directBinaryDecoder(inputStream, DIRECT_BINARY_DECODER.get());
+        DIRECT_BINARY_DECODER.set(decoder);
+        return decoder;
+    }
+
+}
@@ -0,0 +1,396 @@
+package com.github.joshuagrisham.avro;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.avro.Conversion;
+import org.apache.avro.Conversions;
+import org.apache.avro.LogicalType;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericEnumSymbol;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.JsonEncoder;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * Writes Avro data directly to a Jackson {@link JsonGenerator} (such as the XML generator of an XmlMapper) by walking
+ * the datum, without first marshalling it to a JSON string and then parsing that string into a {@link JsonNode}.
+ * <p>
+ * The generated tokens are the same as would be produced by writing the {@link JsonNode} parsed from either
+ * {@link GenericData#toString(Object)} or (when using "Avro Encoder Syntax") the Avro {@link JsonEncoder}, so the
+ * resulting output is identical to the output of going via the JSON string.
+ * <p>
+ * Optionally, the values of logical types (see {@link #LEXICAL_LOGICAL_TYPES}) can instead be written in the lexical
+ * form of their XSD type, e.g. a <code>date</code> as <code>2024-05-31</code> instead of the number of days since the
+ * epoch, which is what {@link AvroXmlSchemaConverter} describes when converting with logical types.
+ */
+public final class AvroDatumJsonWriter {
+
+    // Only used for the (rare) values which GenericData.toString() just appends as-is, e.g. BigDecimal
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    // The logical types which can be written in the lexical form of an XSD type (decimal, date, time or dateTime)
+    public static final Set<String> LEXICAL_LOGICAL_TYPES = Set.of(
+        "decimal", "date", "time-millis", "time-micros", "timestamp-millis", "timestamp-micros",
+        "local-timestamp-millis", "local-timestamp-micros", "uuid");
+
+    private static final Conversions.DecimalConversion DECIMAL_CONVERSION = new Conversions.DecimalConversion();
+    // Only used to resolve unions of logical types, whose values could be either their raw or their converted type
+    private static final GenericData LOGICAL_MODEL = new GenericData();
+    static {
+        LOGICAL_MODEL.addLogicalTypeConversion(DECIMAL_CONVERSION);
+        LOGICAL_MODEL.addLogicalTypeConversion(new TimeConversions.DateConversion());
+        LOGICAL_MODEL.addLogicalTypeConversion(new TimeConversions.TimeMillisConversion());
+        LOGICAL_MODEL.addLogicalTypeConversion(new TimeConversions.TimeMicrosConversion());
+        LOGICAL_MODEL.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+        LOGICAL_MODEL.addLogicalTypeConversion(new TimeConversions.TimestampMicrosConversion());
+        LOGICAL_MODEL.addLogicalTypeConversion(new TimeConversions.LocalTimestampMillisConversion());
+        LOGICAL_MODEL.addLogicalTypeConversion(new TimeConversions.LocalTimestampMicrosConversion());
+        LOGICAL_MODEL.addLogicalTypeConversion(new Conversions.UUIDConversion());
+    }
+
+    private AvroDatumJsonWriter() {}
+
+    /**
+     * Wraps the given record as a {@link JsonSerializable} so that it can be written using any Jackson ObjectMapper
+     * or ObjectWriter (e.g. with a root name).
+     * @param record
+     * @param useAvroEncoderSyntax
+     * @return the wrapped record
+     */
+    public static JsonSerializable asJsonSerializable(GenericRecord record, boolean useAvroEncoderSyntax) {
+        return asJsonSerializable(record, useAvroEncoderSyntax, false);
+    }
+
+    /**
+     * Same as {@link #asJsonSerializable(GenericRecord, boolean)} but optionally writes the values of logical types in
+     * the lexical form of their XSD type.
+     * @param record
+     * @param useAvroEncoderSyntax
+     * @param useLogicalTypes
+     * @return the wrapped record
+     */
+    public static JsonSerializable asJsonSerializable(GenericRecord record, boolean useAvroEncoderSyntax, boolean useLogicalTypes) {
+        return new JsonSerializable.Base() {
+            @Override
+            public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+                write(gen, record, useAvroEncoderSyntax, useLogicalTypes);
+            }
+
+            @Override
+            public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+                throws IOException
+            {
+                serialize(gen, serializers);
+            }
+        };
+    }
+
+    public static void write(JsonGenerator gen, GenericRecord record, boolean useAvroEncoderSyntax) throws IOException {
+        write(gen, record, useAvroEncoderSyntax, false);
+    }
+
+    public static void write(JsonGenerator gen, GenericRecord record, boolean useAvroEncoderSyntax, boolean useLogicalTypes) throws IOException {
+        if (useAvroEncoderSyntax) {
+            GenericData model = record instanceof SpecificRecord ?
+                SpecificData.getForSchema(record.getSchema()) :
+                GenericData.get();
+            writeEncoded(gen, record.getSchema(), record, model, useLogicalTypes);
+        } else {
+            writeString(gen, record, record.getSchema(), useLogicalTypes);
+        }
+    }
+
+    /*
+     * GenericData.toString() syntax; this is driven by the datum itself and not the schema (which is only followed
+     * along to find the logical types when writing them in their lexical form)
+     */
+
+    private static void writeString(JsonGenerator gen, Object datum, Schema schema, boolean useLogicalTypes) throws IOException {
+        if (useLogicalTypes && datum != null) {
+            if (schema.getType() == Schema.Type.UNION)
+                schema = schema.getTypes().get(LOGICAL_MODEL.resolveUnion(schema, datum));
+            if (writeLexical(gen, schema, datum))
+                return;
+        }
+
+        if (datum == null) {
+            gen.writeNull();
+        } else if (datum instanceof IndexedRecord) {
+            IndexedRecord record = (IndexedRecord) datum;
+            gen.writeStartObject();
+            for (Field field : record.getSchema().getFields()) {
+                gen.writeFieldName(field.name());
+                writeString(gen, record.get(field.pos()), field.schema(), useLogicalTypes);
+            }
+            gen.writeEndObject();
+        } else if (datum instanceof Collection) {
+            Schema elementSchema = useLogicalTypes ? schema.getElementType() : null;
+            gen.writeStartArray();
+            for (Object element : (Collection<?>) datum)
+                writeString(gen, element, elementSchema, useLogicalTypes);
+            gen.writeEndArray();
+        } else if (datum instanceof Map) {
+            Schema valueSchema = useLogicalTypes ? schema.getValueType() : null;
+            gen.writeStartObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) datum).entrySet()) {
+                gen.writeFieldName(String.valueOf(entry.getKey()));
+                writeString(gen, entry.getValue(), valueSchema, useLogicalTypes);
+            }
+            gen.writeEndObject();
+        } else if (datum instanceof CharSequence || datum instanceof GenericEnumSymbol) {
+            gen.writeString(datum.toString());
+        } else if (datum instanceof ByteBuffer) {
+            gen.writeString(StandardCharsets.ISO_8859_1.decode(((ByteBuffer) datum).duplicate()).toString());
+        } else if (datum instanceof Integer || datum instanceof Long) {
+            writeIntegral(gen, ((Number) datum).longValue());
+        } else if (datum instanceof Float) {
+            float value = (Float) datum;
+            if (Float.isNaN(value) || Float.isInfinite(value))
+                gen.writeString(datum.toString());
+            else // JSON string is re-parsed as a double
+                gen.writeNumber(Double.parseDouble(datum.toString()));
+        } else if (datum instanceof Double) {
+            double value = (Double) datum;
+            if (Double.isNaN(value) || Double.isInfinite(value))
+                gen.writeString(datum.toString());
+            else
+                gen.writeNumber(value);
+        } else if (datum instanceof Boolean) {
+            gen.writeBoolean((Boolean) datum);
+        } else if (datum instanceof Temporal || datum instanceof UUID) {
+            gen.writeString(datum.toString());
+        } else if (datum instanceof GenericFixed) {
+            // GenericData.Fixed.toString() gives the same as Arrays.toString(bytes)
+            gen.writeStartArray();
+            for (byte b : ((GenericFixed) datum).bytes())
+                gen.writeNumber((int) b);
+            gen.writeEndArray();
+        } else {
+            // anything else is appended as-is by GenericData.toString() (e.g. BigDecimal) so just parse it the same way
+            writeNode(gen, JSON_MAPPER.readTree(datum.toString()));
+        }
+    }
+
+    /*
+     * Avro JsonEncoder syntax; this is driven by the schema in the same way as GenericDatumWriter
+     */
+
+    private static void writeEncoded(JsonGenerator gen, Schema schema, Object datum, GenericData model, boolean useLogicalTypes) throws IOException {
+        LogicalType logicalType = schema.getLogicalType();
+        if (datum != null && logicalType != null) {
+            if (useLogicalTypes && writeLexical(gen, schema, datum))
+                return;
+            Conversion<?> conversion = model.getConversionByClass(datum.getClass(), logicalType);
+            if (conversion != null)
+                datum = convert(datum, schema, logicalType, conversion);
+        }
+
+        switch (schema.getType()) {
+            case RECORD:
+                gen.writeStartObject();
+                for (Field field : schema.getFields()) {
+                    gen.writeFieldName(field.name());
+                    writeEncoded(gen, field.schema(), model.getField(datum, field.name(), field.pos()), model, useLogicalTypes);
+                }
+                gen.writeEndObject();
+                break;
+            case UNION:
+                Schema branch = schema.getTypes().get(model.resolveUnion(schema, datum));
+                if (branch.getType() == Schema.Type.NULL) {
+                    gen.writeNull();
+                } else {
+                    gen.writeStartObject();
+                    gen.writeFieldName(branch.getFullName());
+                    writeEncoded(gen, branch, datum, model, useLogicalTypes);
+                    gen.writeEndObject();
+                }
+                break;
+            case ARRAY:
+                gen.writeStartArray();
+                for (Object element : (Collection<?>) datum)
+                    writeEncoded(gen, schema.getElementType(), element, model, useLogicalTypes);
+                gen.writeEndArray();
+                break;
+            case MAP:
+                gen.writeStartObject();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) datum).entrySet()) {
+                    gen.writeFieldName(entry.getKey().toString());
+                    writeEncoded(gen, schema.getValueType(), entry.getValue(), model, useLogicalTypes);
+                }
+                gen.writeEndObject();
+                break;
+            case ENUM:
+            case STRING:
+                gen.writeString(datum.toString());
+                break;
+            case BYTES:
+                gen.writeString(StandardCharsets.ISO_8859_1.decode(((ByteBuffer) datum).duplicate()).toString());
+                break;
+            case FIXED:
+                gen.writeString(new String(((GenericFixed) datum).bytes(), 0, schema.getFixedSize(),
+                    StandardCharsets.ISO_8859_1));
+                break;
+            case INT:
+            case LONG:
+                writeIntegral(gen, ((Number) datum).longValue());
+                break;
+            case FLOAT:
+                float floatValue = ((Number) datum).floatValue();
+                if (Float.isNaN(floatValue) || Float.isInfinite(floatValue))
+                    gen.writeString(Float.toString(floatValue));
+                else // JSON string is re-parsed as a double
+                    gen.writeNumber(Double.parseDouble(Float.toString(floatValue)));
+                break;
+            case DOUBLE:
+                double doubleValue = ((Number) datum).doubleValue();
+                if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue))
+                    gen.writeString(Double.toString(doubleValue));
+                else
+                    gen.writeNumber(doubleValue);
+                break;
+            case BOOLEAN:
+                gen.writeBoolean((Boolean) datum);
+                break;
+            case NULL:
+                gen.writeNull();
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported Avro Schema Type: " + schema.getType().getName());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Object convert(Object datum, Schema schema, LogicalType logicalType, Conversion<T> conversion) {
+        return Conversions.convertToRawType((T) datum, schema, logicalType, conversion);
+    }
+
+    /*
+     * Logical types in the lexical form of their XSD type; the value can be either the raw or the converted type
+     */
+
+    private static boolean writeLexical(JsonGenerator gen, Schema schema, Object datum) throws IOException {
+        LogicalType logicalType = schema.getLogicalType();
+        if (logicalType == null || !LEXICAL_LOGICAL_TYPES.contains(logicalType.getName()))
+            return false;
+        gen.writeString(lexicalValue(schema, logicalType, datum));
+        return true;
+    }
+
+    private static String lexicalValue(Schema schema, LogicalType logicalType, Object datum) {
+        switch (logicalType.getName()) {
+            case "decimal":
+                BigDecimal decimal;
+                if (datum instanceof BigDecimal)
+                    decimal = (BigDecimal) datum;
+                else if (datum instanceof ByteBuffer)
+                    decimal = DECIMAL_CONVERSION.fromBytes(((ByteBuffer) datum).duplicate(), schema, logicalType);
+                else
+                    decimal = DECIMAL_CONVERSION.fromFixed((GenericFixed) datum, schema, logicalType);
+                // xs:decimal does not allow an exponent
+                return decimal.toPlainString();
+            case "date":
+                return (datum instanceof LocalDate ? (LocalDate) datum : LocalDate.ofEpochDay(((Number) datum).longValue())).toString();
+            case "time-millis":
+                return DateTimeFormatter.ISO_LOCAL_TIME.format(datum instanceof LocalTime ? (LocalTime) datum
+                    : LocalTime.ofNanoOfDay(((Number) datum).longValue() * 1_000_000L));
+            case "time-micros":
+                return DateTimeFormatter.ISO_LOCAL_TIME.format(datum instanceof LocalTime ? (LocalTime) datum
+                    : LocalTime.ofNanoOfDay(((Number) datum).longValue() * 1_000L));
+            case "timestamp-millis":
+                return (datum instanceof Instant ? (Instant) datum : Instant.ofEpochMilli(((Number) datum).longValue())).toString();
+            case "timestamp-micros":
+                return (datum instanceof Instant ? (Instant) datum : Instant.EPOCH.plus(((Number) datum).longValue(), ChronoUnit.MICROS)).toString();
+            case "local-timestamp-millis":
+                return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(datum instanceof LocalDateTime ? (LocalDateTime) datum
+                    : LocalDateTime.ofInstant(Instant.ofEpochMilli(((Number) datum).longValue()), ZoneOffset.UTC));
+            case "local-timestamp-micros":
+                return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(datum instanceof LocalDateTime ? (LocalDateTime) datum
+                    : LocalDateTime.ofInstant(Instant.EPOCH.plus(((Number) datum).longValue(), ChronoUnit.MICROS), ZoneOffset.UTC));
+            default:
+                // uuid is a string either way
+                return datum.toString();
+        }
+    }
+
+    /*
+     * Helpers to write values in the same way as the JsonNode which would have been parsed from the JSON string
+     */
+
+    private static void writeIntegral(JsonGenerator gen, long value) throws IOException {
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+            gen.writeNumber((int) value);
+        else
+            gen.writeNumber(value);
+    }
+
+    private static void writeNode(JsonGenerator gen, JsonNode node) throws IOException {
+        switch (node.getNodeType()) {
+            case OBJECT:
+                gen.writeStartObject();
+                for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext();) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    gen.writeFieldName(field.getKey());
+                    writeNode(gen, field.getValue());
+                }
+                gen.writeEndObject();
+                break;
+            case ARRAY:
+                gen.writeStartArray();
+                for (JsonNode element : node)
+                    writeNode(gen, element);
+                gen.writeEndArray();
+                break;
+            case NUMBER:
+                if (node.isIntegralNumber()) {
+                    BigInteger value = node.bigIntegerValue();
+                    if (node.canConvertToLong())
+                        writeIntegral(gen, value.longValue());
+                    else
+                        gen.writeNumber(value);
+                } else {
+                    gen.writeNumber(node.doubleValue());
+                }
+                break;
+            case BOOLEAN:
+                gen.writeBoolean(node.booleanValue());
+                break;
+            case NULL:
+                gen.writeNull();
+                break;
+            default:
+                gen.writeString(node.asText());
+                break;
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.github.joshuagrisham.avro;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+
+/**
+ * Command line entry point to stream Avro data (newline-delimited Avro JSON, binary Avro datums or an Avro container file) to XML.
+ */
+public class AvroXmlConverterCli {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: java -jar avro-xml-converter.jar [options]",
+        "  -s, --schema <file>    Avro schema file (required unless the input is an Avro container file)",
+        "  -i, --input <file>     Input file (default: stdin)",
+        "  -o, --output <file>    Output file (default: stdout)",
+        "  -c, --container        Input is an Avro container file instead of Avro JSON datums",
+        "  -t, --threads <n>      Convert a container file (-c, from -i) in parallel on n threads",
+        "  -n, --shards <n>       Convert a container file (-c, from -i) in parallel into n files, named after",
+        "                         the output file (-o) with the shard number before its extension",
+        "  -b, --binary           Input is binary Avro datums (one after the other) instead of Avro JSON datums",
+        "  -e, --encoder-syntax   Use Avro Encoder syntax (unions are wrapped in an element named after the type)",
+        "  -p, --pretty           Pretty print the XML",
+        "  -r, --root <name>      Wrap all records in a single document with this root element",
+        "                         (default: one document per record)",
+        "  -h, --help             Show this help");
+
+    public static void main(String[] args) {
+        String schemaPath = null;
+        String inputPath = null;
+        String outputPath = null;
+        boolean container = false;
+        boolean binary = false;
+        int threads = 0;
+        int shards = 0;
+        boolean useAvroEncoderSyntax = false;
+        boolean usePrettyPrinter = false;
+        String rootElementName = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-s", "--schema" -> schemaPath = value(args, ++i);
+                    case "-i", "--input" -> inputPath = value(args, ++i);
+                    case "-o", "--output" -> outputPath = value(args, ++i);
+                    case "-c", "--container" -> container = true;
+                    case "-b", "--binary" -> binary = true;
+                    case "-t", "--threads" -> threads = positive(args, ++i);
+                    case "-n", "--shards" -> shards = positive(args, ++i);
+                    case "-e", "--encoder-syntax" -> useAvroEncoderSyntax = true;
+                    case "-p", "--pretty" -> usePrettyPrinter = true;
+                    case "-r", "--root" -> rootElementName = value(args, ++i);
+                    case "-h", "--help" -> {
+                        System.out.println(USAGE);
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (container && binary)
+                throw new IllegalArgumentException("Only one of --container and --binary can be given.");
+            if ((threads > 0 || shards > 0) && (!container || inputPath == null))
+                throw new IllegalArgumentException("Parallel conversion needs a container file input (--container and --input).");
+            if (shards > 0 && outputPath == null)
+                throw new IllegalArgumentException("Sharded conversion needs an output file (--output) to name the shards after.");
+            if (schemaPath == null && !container)
+                throw new IllegalArgumentException("A schema is required unless the input is an Avro container file.");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        if (shards > 0) {
+            // Each shard is its own output file, so there is no single output stream
+            try {
+                Schema readerSchema = schemaPath == null ? null : new Schema.Parser().parse(new File(schemaPath));
+                List<Path> shardPaths = new ArrayList<>();
+                for (int shard = 0; shard < shards; shard++)
+                    shardPaths.add(shardPath(outputPath, shard, shards));
+                long count = AvroContainerXmlExporter.exportSharded(new File(inputPath), readerSchema, shardPaths, useAvroEncoderSyntax, usePrettyPrinter, rootElementName,
+                    threads > 0 ? threads : Math.min(shards, Runtime.getRuntime().availableProcessors()));
+                System.err.println("Converted " + count + " record(s) to " + shards + " shard(s) of " + outputPath);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Conversion failed: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        try (OutputStream outputStream = outputPath == null ? new NonClosingOutputStream(System.out) : new BufferedOutputStream(new FileOutputStream(outputPath))) {
+
+            // Container files carry their own (writer) schema; if a schema was given then use it as the reader schema
+            Schema avroSchema = schemaPath == null ? null : new Schema.Parser().parse(new File(schemaPath));
+            long count;
+            if (threads > 0) {
+                // Each thread reads its own range of the input file, so there is no single input stream
+                count = AvroContainerXmlExporter.export(new File(inputPath), avroSchema, outputStream, useAvroEncoderSyntax, usePrettyPrinter, rootElementName, threads, AvroContainerXmlExporter.DEFAULT_SPLIT_SIZE);
+            } else {
+                try (InputStream inputStream = inputPath == null ? System.in : new BufferedInputStream(new FileInputStream(inputPath))) {
+                    if (container)
+                        count = AvroXmlDataConverter.convertAllFromContainer(inputStream, avroSchema, outputStream, useAvroEncoderSyntax, usePrettyPrinter, rootElementName);
+                    else if (binary)
+                        count = AvroXmlDataConverter.convertAllBinary(avroSchema, inputStream, outputStream, useAvroEncoderSyntax, usePrettyPrinter, rootElementName);
+                    else
+                        count = AvroXmlDataConverter.convertAll(avroSchema, inputStream, outputStream, useAvroEncoderSyntax, usePrettyPrinter, rootElementName);
+                }
+            }
+            outputStream.flush();
+            if (outputPath != null)
+                System.err.println("Converted " + count + " record(s) to " + outputPath);
+
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Conversion failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length)
+            throw new IllegalArgumentException("Missing value for option: " + args[i - 1]);
+        return args[i];
+    }
+
+    private static int positive(String[] args, int i) {
+        String value = value(args, i);
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0)
+                return number;
+        } catch (NumberFormatException e) {
+            // same as not positive
+        }
+        throw new IllegalArgumentException("Value for option " + args[i - 1] + " must be a positive number: " + value);
+    }
+
+    // e.g. out.xml -> out-01.xml (of 16 shards), padded so that the shards sort in order
+    private static Path shardPath(String outputPath, int shard, int shards) {
+        Path path = Path.of(outputPath);
+        String fileName = path.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String number = String.format("%0" + String.valueOf(shards - 1).length() + "d", shard);
+        String shardFileName = dot > 0
+            ? fileName.substring(0, dot) + "-" + number + fileName.substring(dot)
+            : fileName + "-" + number;
+        return path.resolveSibling(shardFileName);
+    }
+
+    // Lets stdout be used in the same try-with-resources as a file without actually closing it
+    private static class NonClosingOutputStream extends BufferedOutputStream {
+        NonClosingOutputStream(PrintStream out) {
+            super(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+}
@@ -1,31 +1,58 @@
 package com.github.joshuagrisham.avro;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
 
 import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
 import org.apache.avro.generic.GenericDatumReader;
-import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DatumReader;
-import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.DecoderFactory;
-import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.io.JsonDecoder;
 import org.apache.avro.io.JsonEncoder;
-import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.avro.specific.SpecificRecord;
+import org.codehaus.stax2.XMLStreamWriter2;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.xml.XmlFactory;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+import com.fasterxml.jackson.dataformat.xml.util.DefaultXmlPrettyPrinter;
 
 public class AvroXmlDataConverter {
 
+    // Mappers and writers are thread-safe once configured, so share them instead of building new ones for each record
+    // (they are also shared with the ConnectXmlDataConverter)
+    static final XmlMapper XML_MAPPER = new XmlMapper();
+    static final ObjectWriter XML_WRITER = XML_MAPPER.writer();
+    static final ObjectWriter XML_PRETTY_WRITER = XML_MAPPER.writer().withDefaultPrettyPrinter();
+    // Writes several records without a root element (see convertAllWithinRoot), which the default XML writer does not
+    // allow as it would not be a well-formed document
+    private static final XmlFactory XML_FRAGMENT_FACTORY = createFragmentFactory();
+
+    // Confluent wire format: a magic byte and the 4 byte schema id come before each binary datum
+    public static final byte CONFLUENT_MAGIC_BYTE = 0x0;
+    public static final int CONFLUENT_HEADER_SIZE = 5;
+
     public static String convert(String schemaPath, String dataPath) throws IOException {
         return convert(schemaPath, dataPath, false, false);
     }
@@ -59,44 +86,489 @@ public class AvroXmlDataConverter {
     }
 
     public static String convert(GenericRecord record, boolean useAvroEncoderSyntax, boolean usePrettyPrinter) throws JsonMappingException, JsonProcessingException {
-        String recordAsJsonString = useAvroEncoderSyntax ? convertUsingAvroEncoder(record) : record.toString();
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode jsonNode = objectMapper.readTree(recordAsJsonString);
-        XmlMapper xmlMapper = new XmlMapper();
+        return convert(record, useAvroEncoderSyntax, usePrettyPrinter, false);
+    }
+
+    /**
+     * Same as {@link #convert(GenericRecord, boolean, boolean)} but optionally writes the values of logical types in the
+     * lexical form of their XSD type (as described by {@link AvroXmlSchemaConverter#convert(Schema, boolean, boolean)}).
+     * @param record
+     * @param useAvroEncoderSyntax
+     * @param usePrettyPrinter
+     * @param useLogicalTypes
+     * @return the XML document
+     * @throws JsonMappingException
+     * @throws JsonProcessingException
+     */
+    public static String convert(GenericRecord record, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, boolean useLogicalTypes) throws JsonMappingException, JsonProcessingException {
+        // The record is written straight to the XML generator instead of going via a JSON string (using either
+        // record.toString() or convertUsingAvroEncoder(record)) and JsonNode, but the resulting XML is the same
+        return (usePrettyPrinter ? XML_PRETTY_WRITER : XML_WRITER)
+            .withRootName(record.getSchema().getName())
+            .writeValueAsString(AvroDatumJsonWriter.asJsonSerializable(record, useAvroEncoderSyntax, useLogicalTypes));
+    }
+
+    /**
+     * Same as {@link #convert(GenericRecord, boolean, boolean)} but writes the XML document to the given writer (e.g. a
+     * buffer which is reused for each record) instead of returning it as a new String.
+     * @param record
+     * @param useAvroEncoderSyntax
+     * @param usePrettyPrinter
+     * @param writer
+     * @throws IOException
+     */
+    public static void convert(GenericRecord record, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, Writer writer) throws IOException {
+        convert(record, useAvroEncoderSyntax, usePrettyPrinter, false, writer);
+    }
+
+    public static void convert(GenericRecord record, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, boolean useLogicalTypes, Writer writer) throws IOException {
+        try (ToXmlGenerator generator = createGenerator(writer, usePrettyPrinter)) {
+            generator.setNextName(new QName(record.getSchema().getName()));
+            AvroDatumJsonWriter.write(generator, record, useAvroEncoderSyntax, useLogicalTypes);
+        }
+    }
+
+    /**
+     * Converts all Avro JSON datums (e.g. newline-delimited) read from the input stream to XML, written directly to the
+     * output stream as UTF-8.
+     * @param avroSchema
+     * @param jsonInputStream
+     * @param outputStream
+     * @param useAvroEncoderSyntax
+     * @param usePrettyPrinter
+     * @param rootElementName name of the root element wrapping all records in a single document, or null to write
+     *                        one document per record (separated by a newline)
+     * @return the number of records converted
+     * @throws IOException
+     */
+    public static long convertAll(Schema avroSchema, InputStream jsonInputStream, OutputStream outputStream, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        return convertAll(parseAvroDataStream(avroSchema, jsonInputStream), outputStream, useAvroEncoderSyntax, usePrettyPrinter, rootElementName);
+    }
+
+    /**
+     * Converts all binary Avro datums (written one after the other, e.g. by a BinaryEncoder) read from the input
+     * stream to XML, written directly to the output stream as UTF-8.
+     * @param avroSchema the schema the datums were written with
+     * @param binaryInputStream
+     * @param outputStream
+     * @param useAvroEncoderSyntax
+     * @param usePrettyPrinter
+     * @param rootElementName name of the root element wrapping all records in a single document, or null to write
+     *                        one document per record (separated by a newline)
+     * @return the number of records converted
+     * @throws IOException
+     */
+    public static long convertAllBinary(Schema avroSchema, InputStream binaryInputStream, OutputStream outputStream, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        // Each record is written before the next one is read, so they can all be read into the same record
+        return convertAll(parseBinaryAvroDataStream(avroSchema, binaryInputStream, true), outputStream, useAvroEncoderSyntax, usePrettyPrinter, rootElementName);
+    }
+
+    /**
+     * Converts all records of the Avro container file read from the input stream to XML, written directly to the
+     * output stream as UTF-8. The file is read one block at a time and each block is decoded straight into the same
+     * record, so memory use depends on neither the number of records nor the size of the file.
+     * @param containerInputStream
+     * @param readerSchema the schema to read the records as, or null to read them as the (writer) schema of the file
+     * @param outputStream
+     * @param useAvroEncoderSyntax
+     * @param usePrettyPrinter
+     * @param rootElementName name of the root element wrapping all records in a single document, or null to write
+     *                        one document per record (separated by a newline)
+     * @return the number of records converted
+     * @throws IOException
+     */
+    public static long convertAllFromContainer(InputStream containerInputStream, Schema readerSchema, OutputStream outputStream, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>();
+        if (readerSchema != null)
+            reader.setExpected(readerSchema);
+        // The stream belongs to the caller, so the DataFileStream is not closed (which would close the stream)
+        DataFileStream<GenericRecord> dataFileStream = new DataFileStream<>(containerInputStream, reader);
+        return convertAll(new Iterator<GenericRecord>() {
+            private GenericRecord record;
+
+            @Override
+            public boolean hasNext() {
+                return dataFileStream.hasNext();
+            }
+
+            @Override
+            public GenericRecord next() {
+                try {
+                    record = dataFileStream.next(record);
+                    return record;
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Failed to parse Avro data.", e);
+                }
+            }
+        }, outputStream, useAvroEncoderSyntax, usePrettyPrinter, rootElementName);
+    }
+
+    /**
+     * Converts all of the records (e.g. from a DataFileReader or DataFileStream over an Avro container file) to XML,
+     * written directly to the output stream as UTF-8.
+     * @param records
+     * @param outputStream
+     * @param useAvroEncoderSyntax
+     * @param usePrettyPrinter
+     * @param rootElementName name of the root element wrapping all records in a single document, or null to write
+     *                        one document per record (separated by a newline)
+     * @return the number of records converted
+     * @throws IOException
+     */
+    public static long convertAll(Iterator<? extends GenericRecord> records, OutputStream outputStream, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        return convertAll(records, outputStream, useAvroEncoderSyntax, usePrettyPrinter, false, rootElementName);
+    }
+
+    public static long convertAll(Iterator<? extends GenericRecord> records, OutputStream outputStream, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, boolean useLogicalTypes, String rootElementName) throws IOException {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        long count = convertAll(records, writer, useAvroEncoderSyntax, usePrettyPrinter, useLogicalTypes, rootElementName);
+        // Flush whatever is left in the encoder but leave closing the stream to the caller
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Converts all of the records to XML, written directly to the writer. Each record is written as soon as it is read
+     * so memory use does not depend on the number of records.
+     * @param records
+     * @param writer
+     * @param useAvroEncoderSyntax
+     * @param usePrettyPrinter
+     * @param rootElementName name of the root element wrapping all records in a single document, or null to write
+     *                        one document per record (separated by a newline)
+     * @return the number of records converted
+     * @throws IOException
+     */
+    public static long convertAll(Iterator<? extends GenericRecord> records, Writer writer, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        return convertAll(records, writer, useAvroEncoderSyntax, usePrettyPrinter, false, rootElementName);
+    }
+
+    public static long convertAll(Iterator<? extends GenericRecord> records, Writer writer, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, boolean useLogicalTypes, String rootElementName) throws IOException {
+        long count = 0;
+        if (rootElementName != null) {
+            try (ToXmlGenerator generator = createGenerator(writer, usePrettyPrinter)) {
+                generator.setNextName(new QName(rootElementName));
+                generator.writeStartObject();
+                while (records.hasNext()) {
+                    GenericRecord record = records.next();
+                    generator.writeFieldName(record.getSchema().getName());
+                    AvroDatumJsonWriter.write(generator, record, useAvroEncoderSyntax, useLogicalTypes);
+                    count++;
+                }
+                generator.writeEndObject();
+            }
+        } else {
+            // XML only allows one root element per document, so each record needs its own generator
+            while (records.hasNext()) {
+                GenericRecord record = records.next();
+                try (ToXmlGenerator generator = createGenerator(writer, usePrettyPrinter)) {
+                    generator.setNextName(new QName(record.getSchema().getName()));
+                    AvroDatumJsonWriter.write(generator, record, useAvroEncoderSyntax, useLogicalTypes);
+                }
+                // The pretty printer already ends each document with a newline
+                if (!usePrettyPrinter)
+                    writer.write('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Converts the records as they are within the root element (the same as {@link #convertAll(Iterator, Writer,
+     * boolean, boolean, boolean, String)}, so that the pretty printer indents them the same) but without ever writing
+     * the root element's own tags, so that the records of several calls can be written within a single root element
+     * (using {@link #rootStartTag(String)} and {@link #rootEndTag(String, boolean)}). Nothing is written if there are no
+     * records.
+     * @return the number of records converted
+     */
+    static long convertAllWithinRoot(Iterator<? extends GenericRecord> records, Writer writer, boolean useAvroEncoderSyntax, boolean usePrettyPrinter, boolean useLogicalTypes) throws IOException {
+        // Without the structure validation the Stax writer can not finish a document without any elements
+        if (!records.hasNext())
+            return 0;
+        long count = 0;
+        try (ToXmlGenerator generator = createFragmentGenerator(writer, usePrettyPrinter)) {
+            while (records.hasNext()) {
+                GenericRecord record = records.next();
+                generator.setNextName(new QName(record.getSchema().getName()));
+                AvroDatumJsonWriter.write(generator, record, useAvroEncoderSyntax, useLogicalTypes);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // The tags of the root element, as written by the XML generator around the records (the pretty printer uses the
+    // system line separator)
+
+    static String rootStartTag(String rootElementName) {
+        return "<" + rootElementName + ">";
+    }
+
+    static String rootEndTag(String rootElementName, boolean usePrettyPrinter) {
+        return usePrettyPrinter
+            ? System.lineSeparator() + "</" + rootElementName + ">" + System.lineSeparator()
+            : "</" + rootElementName + ">";
+    }
+
+    static String emptyRootElement(String rootElementName, boolean usePrettyPrinter) {
+        return "<" + rootElementName + "/>" + (usePrettyPrinter ? System.lineSeparator() : "");
+    }
+
+    static ToXmlGenerator createGenerator(Writer writer, boolean usePrettyPrinter) throws IOException {
+        ToXmlGenerator generator = XML_MAPPER.getFactory().createGenerator(writer);
+        // The writer belongs to the caller (and is shared by all documents when writing one document per record)
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (usePrettyPrinter)
+            generator.setPrettyPrinter(new DefaultXmlPrettyPrinter());
+        return generator;
+    }
+
+    private static XmlFactory createFragmentFactory() {
+        XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+        // Woodstox's WstxOutputProperties.P_OUTPUT_VALIDATE_STRUCTURE (Woodstox is the Stax2 writer of Jackson XML)
+        outputFactory.setProperty("com.ctc.wstx.outputValidateStructure", false);
+        return XmlFactory.builder().xmlOutputFactory(outputFactory).build();
+    }
+
+    /**
+     * Creates a generator which writes each record as an element at the top level, i.e. without a root element, but
+     * (with the pretty printer) indented the same as within one.
+     */
+    static ToXmlGenerator createFragmentGenerator(Writer writer, boolean usePrettyPrinter) throws IOException {
+        ToXmlGenerator generator = XML_FRAGMENT_FACTORY.createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
         if (usePrettyPrinter)
-            return xmlMapper.writer()
-                .withDefaultPrettyPrinter()
-                .withRootName(record.getSchema().getName())
-                .writeValueAsString(jsonNode);
-        else
-            return xmlMapper.writer()
-                .withRootName(record.getSchema().getName())
-                .writeValueAsString(jsonNode);
+            generator.setPrettyPrinter(new WithinRootPrettyPrinter());
+        return generator;
+    }
+
+    /**
+     * Indents the top level elements one level deeper (as the children of the root element), and does not write the
+     * line feed which the default pretty printer writes after each of them (i.e. after the end tag of the root element).
+     */
+    private static class WithinRootPrettyPrinter extends DefaultXmlPrettyPrinter {
+        private static final long serialVersionUID = 1L;
+
+        WithinRootPrettyPrinter() {
+            _nesting = 1;
+        }
+
+        @Override
+        public WithinRootPrettyPrinter createInstance() {
+            return new WithinRootPrettyPrinter();
+        }
+
+        @Override
+        public void writePrologLinefeed(XMLStreamWriter2 sw) {
+        }
     }
 
     public static String convertUsingAvroEncoder(GenericRecord record) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        convertUsingAvroEncoder(record, outputStream);
+        return outputStream.toString();
+    }
+
+    /**
+     * Same as {@link #convertUsingAvroEncoder(GenericRecord)} but writes the JSON to the given stream (e.g. a buffer
+     * which is reset and reused for each record) instead of returning it. The datum writer and JSON encoder of each
+     * schema are reused, so converting many records of the same schema allocates almost nothing per record.
+     * @param record
+     * @param outputStream
+     */
+    public static void convertUsingAvroEncoder(GenericRecord record, OutputStream outputStream) {
+        AvroDatumCodecs codecs = AvroDatumCodecs.get(record.getSchema());
+        boolean written = false;
         try {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            JsonEncoder jsonEncoder = EncoderFactory.get().jsonEncoder(record.getSchema(), outputStream);
-            DatumWriter<GenericRecord> writer = record instanceof SpecificRecord ?
-                new SpecificDatumWriter<>(record.getSchema()) :
-                new GenericDatumWriter<>(record.getSchema());
-            writer.write(record, jsonEncoder);
+            JsonEncoder jsonEncoder = codecs.jsonEncoder(outputStream);
+            codecs.writer(record instanceof SpecificRecord).write(record, jsonEncoder);
             jsonEncoder.flush();
-            return outputStream.toString();
+            written = true;
         } catch (IOException e) {
             throw new IllegalArgumentException("Failed to convert Avro to JSON.", e);
+        } finally {
+            if (!written)
+                codecs.resetJsonEncoder();
         }
     }
 
     public static GenericRecord parseAvroData(Schema avroSchema, InputStream inputStream) {
+        return parseAvroData(avroSchema, inputStream, null);
+    }
+
+    /**
+     * Parses one Avro JSON datum from the input stream, reusing the datum reader and JSON decoder of the schema.
+     * @param avroSchema
+     * @param inputStream
+     * @param reuse a previously parsed record (of the same schema) to parse into, or null to create a new one
+     * @return the parsed record
+     */
+    public static GenericRecord parseAvroData(Schema avroSchema, InputStream inputStream, GenericRecord reuse) {
         try {
+            AvroDatumCodecs codecs = AvroDatumCodecs.get(avroSchema);
+            return codecs.reader().read(reuse, codecs.jsonDecoder(inputStream));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to parse Avro data.", e);
+        }
+    }
+
+    /**
+     * Lazily parses all Avro JSON datums from the input stream, one at a time, until the end of the stream.
+     * @param avroSchema
+     * @param inputStream
+     * @return an iterator over the parsed records
+     */
+    public static Iterator<GenericRecord> parseAvroDataStream(Schema avroSchema, InputStream inputStream) {
+        try {
+            // the iterator could be consumed on another thread, so it has its own reader and decoder instead of the
+            // current thread's (they are only built once for the whole stream anyway)
             DatumReader<GenericRecord> reader = new GenericDatumReader<>(avroSchema);
             JsonDecoder jsonDecoder = DecoderFactory.get().jsonDecoder(avroSchema, inputStream);
-            return reader.read(null, jsonDecoder);
+            return new Iterator<GenericRecord>() {
+                private GenericRecord next;
+                private boolean done = false;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null && !done) {
+                        try {
+                            next = reader.read(null, jsonDecoder);
+                        } catch (EOFException e) {
+                            // JsonDecoder signals the end of the stream with an EOFException
+                            done = true;
+                        } catch (IOException e) {
+                            throw new IllegalArgumentException("Failed to parse Avro data.", e);
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public GenericRecord next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    GenericRecord record = next;
+                    next = null;
+                    return record;
+                }
+            };
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to parse Avro data.", e);
+        }
+    }
+
+    public static GenericRecord parseBinaryAvroData(Schema avroSchema, byte[] data) {
+        return parseBinaryAvroData(avroSchema, data, 0, data.length, null);
+    }
+
+    /**
+     * Parses one binary Avro datum from the given part of the byte array (e.g. the value of a Kafka message), reusing
+     * the datum reader of the schema and the current thread's binary decoder.
+     * @param avroSchema the schema the datum was written with
+     * @param data
+     * @param offset
+     * @param length
+     * @param reuse a previously parsed record (of the same schema) to parse into, or null to create a new one
+     * @return the parsed record
+     */
+    public static GenericRecord parseBinaryAvroData(Schema avroSchema, byte[] data, int offset, int length, GenericRecord reuse) {
+        try {
+            return AvroDatumCodecs.get(avroSchema).reader().read(reuse, AvroDatumCodecs.binaryDecoder(data, offset, length));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to parse Avro data.", e);
+        }
+    }
+
+    /**
+     * Parses one binary Avro datum from the input stream without reading any further than the end of the datum.
+     * @param avroSchema the schema the datum was written with
+     * @param inputStream
+     * @param reuse a previously parsed record (of the same schema) to parse into, or null to create a new one
+     * @return the parsed record
+     */
+    public static GenericRecord parseBinaryAvroData(Schema avroSchema, InputStream inputStream, GenericRecord reuse) {
+        try {
+            return AvroDatumCodecs.get(avroSchema).reader().read(reuse, AvroDatumCodecs.directBinaryDecoder(inputStream));
         } catch (IOException e) {
             throw new IllegalArgumentException("Failed to parse Avro data.", e);
         }
     }
 
+    /**
+     * Lazily parses all binary Avro datums (written one after the other, e.g. by a BinaryEncoder) from the input
+     * stream, one at a time, until the end of the stream.
+     * @param avroSchema the schema the datums were written with
+     * @param inputStream
+     * @return an iterator over the parsed records
+     */
+    public static Iterator<GenericRecord> parseBinaryAvroDataStream(Schema avroSchema, InputStream inputStream) {
+        return parseBinaryAvroDataStream(avroSchema, inputStream, false);
+    }
+
+    /**
+     * @param reuseRecord true to parse every datum into the same record, i.e. each record is only valid until the next
+     *                    one is read
+     */
+    private static Iterator<GenericRecord> parseBinaryAvroDataStream(Schema avroSchema, InputStream inputStream, boolean reuseRecord) {
+        // Same as parseAvroDataStream, the iterator has its own reader and (buffered) decoder
+        DatumReader<GenericRecord> reader = new GenericDatumReader<>(avroSchema);
+        BinaryDecoder binaryDecoder = DecoderFactory.get().binaryDecoder(inputStream, null);
+        return new Iterator<GenericRecord>() {
+            private GenericRecord record;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    return !binaryDecoder.isEnd();
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Failed to parse Avro data.", e);
+                }
+            }
+
+            @Override
+            public GenericRecord next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                try {
+                    record = reader.read(reuseRecord ? record : null, binaryDecoder);
+                    return record;
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Failed to parse Avro data.", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Parses one binary Avro datum in the Confluent wire format (as written by Confluent's KafkaAvroSerializer), i.e.
+     * a zero magic byte and the 4 byte (big-endian) id of the writer schema in the schema registry, followed by the
+     * datum itself.
+     * @param schemas the schemas by their id, standing in for the schema registry
+     * @param data
+     * @return the parsed record
+     */
+    public static GenericRecord parseConfluentAvroData(Map<Integer, Schema> schemas, byte[] data) {
+        return parseConfluentAvroData(schemas, data, null);
+    }
+
+    /**
+     * Same as {@link #parseConfluentAvroData(Map, byte[])} but parses into the given record if it has the same schema.
+     * @param schemas the schemas by their id, standing in for the schema registry
+     * @param data
+     * @param reuse a previously parsed record to parse into, or null to create a new one
+     * @return the parsed record
+     */
+    public static GenericRecord parseConfluentAvroData(Map<Integer, Schema> schemas, byte[] data, GenericRecord reuse) {
+        if (data.length < CONFLUENT_HEADER_SIZE || data[0] != CONFLUENT_MAGIC_BYTE)
+            throw new IllegalArgumentException("Failed to parse Avro data: unknown magic byte, expected the Confluent wire format.");
+        int schemaId = ByteBuffer.wrap(data, 1, 4).getInt();
+        Schema avroSchema = schemas.get(schemaId);
+        if (avroSchema == null)
+            throw new IllegalArgumentException("Failed to parse Avro data: unknown schema id " + schemaId + ".");
+        if (reuse != null && !reuse.getSchema().equals(avroSchema))
+            reuse = null;
+        return parseBinaryAvroData(avroSchema, data, CONFLUENT_HEADER_SIZE, data.length - CONFLUENT_HEADER_SIZE, reuse);
+    }
+
 }
@@ -0,0 +1,203 @@
+package com.github.joshuagrisham.avro;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.xml.transform.OutputKeys;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.ws.commons.schema.XmlSchema;
+
+/**
+ * Bounded (LRU) cache of converted XML Schemas, keyed by a SHA-256 fingerprint of the Avro schema plus the
+ * "Avro Encoder Syntax" flag, so that schemas which are requested over and over are only converted once.
+ * <p>
+ * The fingerprint is taken from the full schema JSON and not the Parsing Canonical Form, as the canonical form drops
+ * attributes (e.g. logical types) which can change the resulting XML Schema.
+ * <p>
+ * Kafka Connect schemas can also be converted directly (see {@link ConnectXmlSchemaConverter}) and cached by the Connect
+ * schema itself, which saves both converting it to an Avro schema and computing the fingerprint.
+ * <p>
+ * Cached XmlSchema instances are shared between callers and should not be modified.
+ */
+public class AvroXmlSchemaCache {
+
+    public static final int DEFAULT_MAX_SIZE = 100;
+
+    private final int maxSize;
+    // keyed by either the Avro schema's fingerprint and syntax, or the Connect schema itself
+    private final Map<Object, Entry> entries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public AvroXmlSchemaCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public AvroXmlSchemaCache(int maxSize) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Cache size must be at least 1.");
+        this.maxSize = maxSize;
+        // access-ordered so that the least recently used entry is the eldest
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                if (size() > AvroXmlSchemaCache.this.maxSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the converted XML Schema (and its serialised text) for the given Avro schema, converting it if it is not
+     * already in the cache.
+     * @param avroSchema
+     * @param useAvroEncoderSyntax
+     * @return the cache entry
+     */
+    public Entry get(Schema avroSchema, boolean useAvroEncoderSyntax) {
+        return get(avroSchema, useAvroEncoderSyntax, false);
+    }
+
+    /**
+     * Get the converted XML Schema (and its serialised text) for the given Avro schema, with logical types as their
+     * lexical XSD types, converting it if it is not already in the cache.
+     * @param avroSchema
+     * @param useAvroEncoderSyntax
+     * @param useLogicalTypes
+     * @return the cache entry
+     */
+    public Entry get(Schema avroSchema, boolean useAvroEncoderSyntax, boolean useLogicalTypes) {
+        String fingerprint = fingerprint(avroSchema);
+        String key = fingerprint + (useAvroEncoderSyntax ? ":encoder" : ":default") + (useLogicalTypes ? ":logical" : "");
+        return get(key, fingerprint, () -> AvroXmlSchemaConverter.convert(avroSchema, useAvroEncoderSyntax, useLogicalTypes));
+    }
+
+    /**
+     * Get the converted XML Schema (and its serialised text) for the given Kafka Connect schema, converting it directly
+     * with the {@link ConnectXmlSchemaConverter} if it is not already in the cache. This gives the same XML Schema as
+     * converting the Avro schema which AvroData converts the Connect schema to (without "Avro Encoder Syntax").
+     * @param connectSchema
+     * @return the cache entry, which does not have a fingerprint
+     */
+    public Entry get(org.apache.kafka.connect.data.Schema connectSchema) {
+        return get(connectSchema, null, () -> ConnectXmlSchemaConverter.convert(connectSchema));
+    }
+
+    private Entry get(Object key, String fingerprint, Supplier<XmlSchema> converter) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hitCount.incrementAndGet();
+                return entry;
+            }
+        }
+
+        // Convert outside of the lock; if two threads miss on the same schema at once then the last one wins,
+        // which is harmless since both results are equivalent
+        missCount.incrementAndGet();
+        XmlSchema xmlSchema = converter.get();
+        StringWriter stringWriter = new StringWriter();
+        xmlSchema.write(stringWriter, Map.of(OutputKeys.INDENT, "yes"));
+        Entry entry = new Entry(fingerprint, xmlSchema, stringWriter.toString());
+
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    public XmlSchema getXmlSchema(Schema avroSchema, boolean useAvroEncoderSyntax) {
+        return get(avroSchema, useAvroEncoderSyntax).getXmlSchema();
+    }
+
+    public String getXmlSchemaString(Schema avroSchema, boolean useAvroEncoderSyntax) {
+        return get(avroSchema, useAvroEncoderSyntax).getXmlSchemaString();
+    }
+
+    public String getXmlSchemaString(Schema avroSchema, boolean useAvroEncoderSyntax, boolean useLogicalTypes) {
+        return get(avroSchema, useAvroEncoderSyntax, useLogicalTypes).getXmlSchemaString();
+    }
+
+    public String getXmlSchemaString(org.apache.kafka.connect.data.Schema connectSchema) {
+        return get(connectSchema).getXmlSchemaString();
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * @return SHA-256 fingerprint (as a hex string) of the full JSON of the Avro schema
+     */
+    public static String fingerprint(Schema avroSchema) {
+        try {
+            return HexFormat.of().formatHex(
+                SchemaNormalization.fingerprint("SHA-256", avroSchema.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required to be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Entry {
+        private final String fingerprint;
+        private final XmlSchema xmlSchema;
+        private final String xmlSchemaString;
+
+        private Entry(String fingerprint, XmlSchema xmlSchema, String xmlSchemaString) {
+            this.fingerprint = fingerprint;
+            this.xmlSchema = xmlSchema;
+            this.xmlSchemaString = xmlSchemaString;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public XmlSchema getXmlSchema() {
+            return xmlSchema;
+        }
+
+        public String getXmlSchemaString() {
+            return xmlSchemaString;
+        }
+    }
+
+}
@@ -2,10 +2,13 @@ package com.github.joshuagrisham.avro;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.xml.namespace.QName;
 
+import org.apache.avro.LogicalType;
+import org.apache.avro.LogicalTypes;
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
 import org.apache.ws.commons.schema.XmlSchema;
@@ -13,9 +16,21 @@ import org.apache.ws.commons.schema.XmlSchemaAll;
 import org.apache.ws.commons.schema.XmlSchemaAny;
 import org.apache.ws.commons.schema.XmlSchemaCollection;
 import org.apache.ws.commons.schema.XmlSchemaComplexType;
+import org.apache.ws.commons.schema.XmlSchemaContentProcessing;
 import org.apache.ws.commons.schema.XmlSchemaElement;
+import org.apache.ws.commons.schema.XmlSchemaEnumerationFacet;
+import org.apache.ws.commons.schema.XmlSchemaFacet;
+import org.apache.ws.commons.schema.XmlSchemaFractionDigitsFacet;
+import org.apache.ws.commons.schema.XmlSchemaLengthFacet;
+import org.apache.ws.commons.schema.XmlSchemaPatternFacet;
 import org.apache.ws.commons.schema.XmlSchemaSequence;
+import org.apache.ws.commons.schema.XmlSchemaSimpleType;
+import org.apache.ws.commons.schema.XmlSchemaSimpleTypeRestriction;
+import org.apache.ws.commons.schema.XmlSchemaSimpleTypeUnion;
+import org.apache.ws.commons.schema.XmlSchemaTotalDigitsFacet;
+import org.apache.ws.commons.schema.XmlSchemaType;
 import org.apache.ws.commons.schema.constants.Constants;
+import org.apache.ws.commons.schema.utils.NamespaceMap;
 
 /*
  * Documentation for XmlSchema is a bit tricky to come by. Good starting point: https://stackoverflow.com/a/27648494
@@ -24,12 +39,11 @@ import org.apache.ws.commons.schema.constants.Constants;
 public class AvroXmlSchemaConverter {
     
     // Mapping from Avro primitive types to XSD types per documentation here: https://avro.apache.org/docs/1.11.1/specification/#complex-types
+    // (enums and fixed are restricted simple types of their own, see below)
     public static final Map<Schema.Type, QName> TYPEMAP = Map.of(
         Schema.Type.BOOLEAN, Constants.XSD_BOOLEAN,
         Schema.Type.BYTES, Constants.XSD_STRING,
         Schema.Type.DOUBLE, Constants.XSD_DOUBLE,
-        Schema.Type.ENUM, Constants.XSD_STRING,
-        Schema.Type.FIXED, Constants.XSD_STRING,
         Schema.Type.FLOAT, Constants.XSD_FLOAT,
         Schema.Type.INT, Constants.XSD_INT,
         Schema.Type.LONG, Constants.XSD_LONG,
@@ -37,15 +51,47 @@ public class AvroXmlSchemaConverter {
         Schema.Type.NULL, Constants.XSD_ANYTYPE // It would be quite strange to have a field with only type NULL outside of a UNION, but in case that happens just map it to xsd:anyType
     );
 
-    private static XmlSchemaElement getXmlSchemaElement(QName name, Schema avroSchema, XmlSchema parentXmlSchema, boolean useAvroEncoderSyntax) {
-        return getXmlSchemaElement(name, avroSchema, parentXmlSchema, useAvroEncoderSyntax, false);
+    // Appended to the name of a record's type for the type of its optional (nullable) references
+    public static final String OPTIONAL_TYPE_SUFFIX = "-optional";
+
+    // Mapping from the logical types which AvroDatumJsonWriter can write in their lexical form to XSD types (decimal and
+    // uuid are further restricted, see below)
+    public static final Map<String, QName> LOGICAL_TYPEMAP = Map.of(
+        "decimal", Constants.XSD_DECIMAL,
+        "date", Constants.XSD_DATE,
+        "time-millis", Constants.XSD_TIME,
+        "time-micros", Constants.XSD_TIME,
+        "timestamp-millis", Constants.XSD_DATETIME,
+        "timestamp-micros", Constants.XSD_DATETIME,
+        "local-timestamp-millis", Constants.XSD_DATETIME,
+        "local-timestamp-micros", Constants.XSD_DATETIME,
+        "uuid", Constants.XSD_STRING
+    );
+
+    public static final String UUID_PATTERN = "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}";
+
+    private static XmlSchemaElement getXmlSchemaElement(QName name, Schema avroSchema, XmlSchema parentXmlSchema, Map<String, QName> namedTypes, boolean useAvroEncoderSyntax, boolean useLogicalTypes) {
+        return getXmlSchemaElement(name, avroSchema, parentXmlSchema, namedTypes, useAvroEncoderSyntax, useLogicalTypes, false);
     }
 
-    private static XmlSchemaElement getXmlSchemaElement(QName name, Schema avroSchema, XmlSchema parentXmlSchema, boolean useAvroEncoderSyntax, boolean isOptional) {
-        return getXmlSchemaElement(name, avroSchema, parentXmlSchema, useAvroEncoderSyntax, isOptional, false);
+    private static XmlSchemaElement getXmlSchemaElement(QName name, Schema avroSchema, XmlSchema parentXmlSchema, Map<String, QName> namedTypes, boolean useAvroEncoderSyntax, boolean useLogicalTypes, boolean isOptional) {
+        return getXmlSchemaElement(name, avroSchema, parentXmlSchema, namedTypes, useAvroEncoderSyntax, useLogicalTypes, isOptional, false);
     }
 
-    private static XmlSchemaElement getXmlSchemaElement(QName name, Schema avroSchema, XmlSchema parentXmlSchema, boolean useAvroEncoderSyntax, boolean isOptional, boolean topLevel) {
+    /**
+     * Build the XmlSchemaElement for the given Avro schema.
+     * @param name
+     * @param avroSchema
+     * @param parentXmlSchema
+     * @param namedTypes QNames of the top-level types which have already been created (or are in the process of
+     *                   being created) for named Avro records and enums, keyed by their full name
+     * @param useAvroEncoderSyntax
+     * @param useLogicalTypes true if logical types are written in the lexical form of their XSD type
+     * @param isOptional
+     * @param topLevel
+     * @return the element
+     */
+    private static XmlSchemaElement getXmlSchemaElement(QName name, Schema avroSchema, XmlSchema parentXmlSchema, Map<String, QName> namedTypes, boolean useAvroEncoderSyntax, boolean useLogicalTypes, boolean isOptional, boolean topLevel) {
 
         XmlSchemaElement element = new XmlSchemaElement(parentXmlSchema, topLevel);
 
@@ -53,6 +99,11 @@ public class AvroXmlSchemaConverter {
         if (isOptional)
             element.setMinOccurs(0);
 
+        if (useLogicalTypes && isLexicalLogicalType(avroSchema)) {
+            setLogicalType(element, avroSchema.getLogicalType(), parentXmlSchema);
+            return element;
+        }
+
         switch (avroSchema.getType()) {
 
             /* Complex Types */
@@ -74,10 +125,12 @@ public class AvroXmlSchemaConverter {
                                     unionFieldSchema.getName()),
                                 unionFieldSchema,
                                 parentXmlSchema,
+                                namedTypes,
                                 useAvroEncoderSyntax,
+                                useLogicalTypes,
                                 true);
-                            if (unionFieldSchema.getType() == Schema.Type.RECORD)
-                                unionElement.setName(unionFieldSchema.getFullName());
+                            // the Avro Encoder names the branches of named types (records, enums and fixed) by their full name
+                            unionElement.setName(unionFieldSchema.getFullName());
                             unionSequence.getItems().add(unionElement);
                         }
                     }
@@ -91,7 +144,9 @@ public class AvroXmlSchemaConverter {
                     if (avroSchema.getTypes().size() == 2 && avroSchema.isNullable()) {
                         for (Schema unionFieldSchema : avroSchema.getTypes())
                             if (unionFieldSchema.getType() != Schema.Type.NULL) {
-                                element = getXmlSchemaElement(name, unionFieldSchema, parentXmlSchema, useAvroEncoderSyntax, true);
+                                element = getXmlSchemaElement(name, unionFieldSchema, parentXmlSchema, namedTypes, useAvroEncoderSyntax, useLogicalTypes, true);
+                                // null is written as an empty element, which simple types other than strings do not allow by themselves
+                                allowEmpty(element, parentXmlSchema);
                             }
                     } else {
                         // otherwise the contents at the element level can be multiple types, so just allow anything
@@ -102,48 +157,58 @@ public class AvroXmlSchemaConverter {
                 break;
 
             case RECORD:
-                // Records should return /element name={field.name}/complexType/{sequence or all}/{record fields}
-                // Prefer all over sequence, but if Fields has any Arrays then it will need to be a sequence to allow for maxOccurs > 1
-                XmlSchemaComplexType recordComplexType = new XmlSchemaComplexType(parentXmlSchema, topLevel);
-                XmlSchemaAll recordAll = new XmlSchemaAll();
-                XmlSchemaSequence recordSequence = new XmlSchemaSequence();
-
-                // Peek into Fields to see if there are any arrays
-                boolean hasArray = false;
-                for (Field recordField : avroSchema.getFields()) {
-                    if (recordField.schema().getType() == Schema.Type.ARRAY)
-                        hasArray = true;
-                }
+                // Named records are only created once, as a top-level named complexType, and every occurrence of the record (including recursive ones)
+                // just references that type by its QName; this way the size of the XSD only grows with the number of distinct records
+                QName recordTypeName = namedTypes.get(avroSchema.getFullName());
+                if (recordTypeName == null) {
+                    // XSD type names all share the schema's target namespace, so only fall back to the full name if a record with the same name but in
+                    // a different Avro namespace already took the short name
+                    recordTypeName = namedTypeName(name, avroSchema, parentXmlSchema);
+                    // Register the name before adding the fields so that recursive references find it instead of recursing forever
+                    namedTypes.put(avroSchema.getFullName(), recordTypeName);
+
+                    // Records should return /complexType name={record.name}/{sequence or all}/{record fields}
+                    // Prefer all over sequence, but if Fields has any Arrays then it will need to be a sequence to allow for maxOccurs > 1
+                    XmlSchemaComplexType recordComplexType = new XmlSchemaComplexType(parentXmlSchema, true);
+                    recordComplexType.setName(recordTypeName.getLocalPart());
+                    XmlSchemaAll recordAll = new XmlSchemaAll();
+                    XmlSchemaSequence recordSequence = new XmlSchemaSequence();
+
+                    // Peek into Fields to see if there are any arrays (or anything else written as repeated elements)
+                    boolean hasArray = false;
+                    for (Field recordField : avroSchema.getFields()) {
+                        if (isRepeated(recordField.schema(), useAvroEncoderSyntax, useLogicalTypes))
+                            hasArray = true;
+                    }
 
-                // Now loop through and add each field to the right list
-                for (Field recordField : avroSchema.getFields()) {
-                    XmlSchemaElement fieldElement = getXmlSchemaElement(
-                        new QName(name.getNamespaceURI(),
-                            recordField.name()),
-                        recordField.schema(),
-                        parentXmlSchema,
-                        useAvroEncoderSyntax);
-                    if (hasArray)
-                        recordSequence.getItems().add(fieldElement);
-                    else
-                        recordAll.getItems().add(fieldElement);
+                    // Now loop through and add each field to the right list
+                    for (Field recordField : avroSchema.getFields()) {
+                        XmlSchemaElement fieldElement = getXmlSchemaElement(
+                            new QName(name.getNamespaceURI(),
+                                recordField.name()),
+                            recordField.schema(),
+                            parentXmlSchema,
+                            namedTypes,
+                            useAvroEncoderSyntax,
+                            useLogicalTypes);
+                        if (hasArray)
+                            recordSequence.getItems().add(fieldElement);
+                        else
+                            recordAll.getItems().add(fieldElement);
+                    }
+                    recordComplexType.setParticle(hasArray ? recordSequence : recordAll);
+                    // A (recursive) optional reference to the record may already have created its optional type
+                    completeOptionalType(recordComplexType, parentXmlSchema);
                 }
-                recordComplexType.setParticle(hasArray ? recordSequence : recordAll);
 
-                // Since XMLSchema-Core seems to automatically create a named complexType for the top level then we have to handle it differently
-                // Basically just set the SchemaTypeName to the QName of the complexType that it creates instead of embedding it within the Record's complexType
-                if (topLevel) {
-                    recordComplexType.setName(avroSchema.getName());
-                    element.setSchemaTypeName(new QName(name.getNamespaceURI(), avroSchema.getName()));
-                } else {
-                    element.setType(recordComplexType);
-                }
+                // Then the element itself is just /element name={field.name} type={record type}
+                element.setSchemaTypeName(recordTypeName);
 
                 break;
 
             case ARRAY:
                 // Array should return an element of its content type (ElementType) with maxOccurs="unbounded"
-                element = getXmlSchemaElement(name, avroSchema.getElementType(), parentXmlSchema, useAvroEncoderSyntax, isOptional);
+                element = getXmlSchemaElement(name, avroSchema.getElementType(), parentXmlSchema, namedTypes, useAvroEncoderSyntax, useLogicalTypes, isOptional);
                 element.setMaxOccurs(Long.MAX_VALUE);
                 break;
 
@@ -156,6 +221,8 @@ public class AvroXmlSchemaConverter {
                 if (isOptional)
                     mapAny.setMinOccurs(0);
                 mapAny.setMaxOccurs(Long.MAX_VALUE);
+                // The keys are not declared anywhere, so their elements can not be validated
+                mapAny.setProcessContent(XmlSchemaContentProcessing.SKIP);
                 mapSequence.getItems().add(mapAny);
                 mapComplexType.setParticle(mapSequence);
 
@@ -174,15 +241,46 @@ public class AvroXmlSchemaConverter {
 
             // Primitive types should return /element name={field.name} type={simple type}
 
+            case ENUM:
+                // Enums are written as one of their symbols, so they are a string restricted to the symbols; same as records,
+                // each enum is only created once as a top-level named simpleType which every occurrence references
+                QName enumTypeName = namedTypes.get(avroSchema.getFullName());
+                if (enumTypeName == null) {
+                    enumTypeName = namedTypeName(name, avroSchema, parentXmlSchema);
+                    namedTypes.put(avroSchema.getFullName(), enumTypeName);
+
+                    XmlSchemaFacet[] symbols = avroSchema.getEnumSymbols().stream()
+                        .map(symbol -> new XmlSchemaEnumerationFacet(symbol, false))
+                        .toArray(XmlSchemaFacet[]::new);
+                    XmlSchemaSimpleType enumSimpleType = restrictedSimpleType(parentXmlSchema, true, Constants.XSD_STRING, symbols);
+                    enumSimpleType.setName(enumTypeName.getLocalPart());
+                }
+                element.setSchemaTypeName(enumTypeName);
+                break;
+
+            case FIXED:
+                if (useAvroEncoderSyntax) {
+                    // The Avro Encoder writes each byte as one (ISO-8859-1) character
+                    element.setType(restrictedSimpleType(parentXmlSchema, false, Constants.XSD_STRING,
+                        new XmlSchemaLengthFacet(avroSchema.getFixedSize(), false)));
+                } else {
+                    // GenericData.toString() writes it as an array of the (signed) bytes, i.e. exactly one element per byte
+                    element.setSchemaTypeName(Constants.XSD_BYTE);
+                    if (!isOptional)
+                        element.setMinOccurs(avroSchema.getFixedSize());
+                    element.setMaxOccurs(avroSchema.getFixedSize());
+                }
+                break;
+
             case NULL:
                 // For NULL we will also just set minOccurs to 0, otherwise it can be handled like all other primitive types
                 element.setMinOccurs(0);
-            case ENUM:
-                // TODO for ENUM we could get "fancier" and restrict the values in the XSD? but for now it can just be mapped to a plain string
+                element.setSchemaTypeName(TYPEMAP.get(avroSchema.getType()));
+                break;
+
             case BOOLEAN:
             case BYTES:
             case DOUBLE:
-            case FIXED:
             case FLOAT:
             case INT:
             case LONG:
@@ -219,6 +317,28 @@ public class AvroXmlSchemaConverter {
     }
 
     public static XmlSchema convert(Schema avroSchema, boolean useAvroEncoderSyntax) {
+        return convert(avroSchema, useAvroEncoderSyntax, false);
+    }
+
+    /**
+     * Convert the Avro schema to an XML Schema, optionally describing logical types (decimal, date, time, timestamp and
+     * uuid) by their own XSD types, for data which is written in the lexical form of those types (see
+     * {@link AvroDatumJsonWriter}).
+     * @param avroSchema
+     * @param useAvroEncoderSyntax
+     * @param useLogicalTypes
+     * @return the XML Schema
+     */
+    public static XmlSchema convert(Schema avroSchema, boolean useAvroEncoderSyntax, boolean useLogicalTypes) {
+        return convert(avroSchema, useAvroEncoderSyntax, useLogicalTypes, true);
+    }
+
+    /**
+     * @param useTargetNamespace false to leave out the target namespace (i.e. the Avro namespace), which gives an XML
+     *                           Schema that the XML written by the {@link AvroXmlDataConverter} (which is not in any
+     *                           namespace) can be validated against
+     */
+    static XmlSchema convert(Schema avroSchema, boolean useAvroEncoderSyntax, boolean useLogicalTypes, boolean useTargetNamespace) {
         XmlSchemaCollection collection = new XmlSchemaCollection();
         QName schemaQName;
 
@@ -227,7 +347,7 @@ public class AvroXmlSchemaConverter {
             case RECORD:
             case ENUM:
             case FIXED:
-                schemaQName = new QName(avroSchema.getNamespace(), avroSchema.getName());
+                schemaQName = new QName(useTargetNamespace ? avroSchema.getNamespace() : null, avroSchema.getName());
                 break;
             default:
                 // Just hard-code the name "value" if the schema root is not a Record, Enum, or Fixed
@@ -236,8 +356,145 @@ public class AvroXmlSchemaConverter {
         }
 
         XmlSchema xmlSchema = new XmlSchema(schemaQName.getNamespaceURI(), collection);
-        xmlSchema.getElements().put(schemaQName, getXmlSchemaElement(schemaQName, avroSchema, xmlSchema, useAvroEncoderSyntax, false, true));
+        // Without a target namespace the references to the named record types would resolve against the default (XSD) namespace, so give XSD its own prefix
+        if (schemaQName.getNamespaceURI().isEmpty()) {
+            NamespaceMap namespaces = new NamespaceMap();
+            namespaces.add("xs", Constants.URI_2001_SCHEMA_XSD);
+            xmlSchema.setNamespaceContext(namespaces);
+        }
+        xmlSchema.getElements().put(schemaQName, getXmlSchemaElement(schemaQName, avroSchema, xmlSchema, new HashMap<>(), useAvroEncoderSyntax, useLogicalTypes, false, true));
         return xmlSchema;
     }
 
+    /**
+     * @return the name of the top-level type for the named Avro schema (record or enum); XSD type names all share the
+     * schema's target namespace, so only fall back to the full name if a type with the same name but in a different
+     * Avro namespace already took the short name
+     */
+    private static QName namedTypeName(QName name, Schema avroSchema, XmlSchema parentXmlSchema) {
+        QName typeName = new QName(name.getNamespaceURI(), avroSchema.getName());
+        if (parentXmlSchema.getTypeByName(typeName) != null)
+            typeName = new QName(name.getNamespaceURI(), avroSchema.getFullName());
+        return typeName;
+    }
+
+    /**
+     * @return true if the schema is written as repeated elements (which an xs:all does not allow), i.e. an array or (with
+     * the GenericData.toString() syntax) a fixed
+     */
+    private static boolean isRepeated(Schema avroSchema, boolean useAvroEncoderSyntax, boolean useLogicalTypes) {
+        if (useLogicalTypes && isLexicalLogicalType(avroSchema))
+            return false;
+        return avroSchema.getType() == Schema.Type.ARRAY ||
+            (avroSchema.getType() == Schema.Type.FIXED && !useAvroEncoderSyntax);
+    }
+
+    private static boolean isLexicalLogicalType(Schema avroSchema) {
+        return avroSchema.getLogicalType() != null &&
+            AvroDatumJsonWriter.LEXICAL_LOGICAL_TYPES.contains(avroSchema.getLogicalType().getName());
+    }
+
+    private static void setLogicalType(XmlSchemaElement element, LogicalType logicalType, XmlSchema parentXmlSchema) {
+        if (logicalType instanceof LogicalTypes.Decimal) {
+            LogicalTypes.Decimal decimal = (LogicalTypes.Decimal) logicalType;
+            element.setType(restrictedSimpleType(parentXmlSchema, false, Constants.XSD_DECIMAL,
+                new XmlSchemaTotalDigitsFacet(decimal.getPrecision(), false),
+                new XmlSchemaFractionDigitsFacet(decimal.getScale(), false)));
+        } else if (logicalType.getName().equals("uuid")) {
+            element.setType(restrictedSimpleType(parentXmlSchema, false, Constants.XSD_STRING,
+                new XmlSchemaPatternFacet(UUID_PATTERN, false)));
+        } else {
+            element.setSchemaTypeName(LOGICAL_TYPEMAP.get(logicalType.getName()));
+        }
+    }
+
+    static XmlSchemaSimpleType restrictedSimpleType(XmlSchema parentXmlSchema, boolean topLevel, QName baseTypeName, XmlSchemaFacet... facets) {
+        XmlSchemaSimpleType simpleType = new XmlSchemaSimpleType(parentXmlSchema, topLevel);
+        XmlSchemaSimpleTypeRestriction restriction = new XmlSchemaSimpleTypeRestriction();
+        restriction.setBaseTypeName(baseTypeName);
+        for (XmlSchemaFacet facet : facets)
+            restriction.getFacets().add(facet);
+        simpleType.setContent(restriction);
+        return simpleType;
+    }
+
+    /**
+     * Changes the type of the element to one which also allows an empty element, since null is written as an empty
+     * element: records get their optional type (see {@link #optionalTypeName}), and simple types which do not allow an
+     * empty value (e.g. xs:int) become a union of that type and an empty string.
+     * @param element
+     * @param parentXmlSchema
+     */
+    static void allowEmpty(XmlSchemaElement element, XmlSchema parentXmlSchema) {
+        QName typeName = element.getSchemaTypeName();
+        XmlSchemaSimpleTypeUnion union = new XmlSchemaSimpleTypeUnion();
+        if (typeName != null) {
+            if (typeName.equals(Constants.XSD_STRING) || typeName.equals(Constants.XSD_ANYTYPE))
+                return;
+            // records are complexTypes (and the only named types besides enums)
+            if (parentXmlSchema.getTypeByName(typeName) instanceof XmlSchemaComplexType) {
+                element.setSchemaTypeName(optionalTypeName(typeName, parentXmlSchema));
+                return;
+            }
+            union.setMemberTypesQNames(new QName[] { typeName });
+        } else {
+            XmlSchemaType type = element.getSchemaType();
+            if (!(type instanceof XmlSchemaSimpleType))
+                return;
+            union.getBaseTypes().add((XmlSchemaSimpleType) type);
+        }
+        union.getBaseTypes().add(restrictedSimpleType(parentXmlSchema, false, Constants.XSD_STRING,
+            new XmlSchemaLengthFacet(0, false)));
+
+        XmlSchemaSimpleType emptyOrType = new XmlSchemaSimpleType(parentXmlSchema, false);
+        emptyOrType.setContent(union);
+        element.setSchemaTypeName(null);
+        element.setType(emptyOrType);
+    }
+
+    /**
+     * Gets (creating it if needed) the optional type of the record type, which has the same fields but also allows
+     * them all to be left out, i.e. an empty element for a null record. Avro names can not contain a '-', so the name
+     * can not clash with any other type.
+     * @param recordTypeName
+     * @param parentXmlSchema
+     * @return the name of the optional type
+     */
+    static QName optionalTypeName(QName recordTypeName, XmlSchema parentXmlSchema) {
+        QName optionalTypeName = new QName(recordTypeName.getNamespaceURI(), recordTypeName.getLocalPart() + OPTIONAL_TYPE_SUFFIX);
+        if (parentXmlSchema.getTypeByName(optionalTypeName) == null) {
+            XmlSchemaComplexType optionalComplexType = new XmlSchemaComplexType(parentXmlSchema, true);
+            optionalComplexType.setName(optionalTypeName.getLocalPart());
+            // the record's own fields are only known once its type is complete (which it is not yet for a recursive reference)
+            XmlSchemaComplexType recordComplexType = (XmlSchemaComplexType) parentXmlSchema.getTypeByName(recordTypeName);
+            if (recordComplexType.getParticle() != null)
+                completeOptionalType(recordComplexType, parentXmlSchema);
+        }
+        return optionalTypeName;
+    }
+
+    /**
+     * Sets the particle of the record type's optional type (if it has one) to the same fields as the record type, but
+     * with minOccurs=0.
+     * @param recordComplexType
+     * @param parentXmlSchema
+     */
+    static void completeOptionalType(XmlSchemaComplexType recordComplexType, XmlSchema parentXmlSchema) {
+        QName optionalTypeName = new QName(recordComplexType.getQName().getNamespaceURI(), recordComplexType.getQName().getLocalPart() + OPTIONAL_TYPE_SUFFIX);
+        XmlSchemaComplexType optionalComplexType = (XmlSchemaComplexType) parentXmlSchema.getTypeByName(optionalTypeName);
+        if (optionalComplexType == null)
+            return;
+        if (recordComplexType.getParticle() instanceof XmlSchemaAll) {
+            XmlSchemaAll optionalAll = new XmlSchemaAll();
+            optionalAll.getItems().addAll(((XmlSchemaAll) recordComplexType.getParticle()).getItems());
+            optionalAll.setMinOccurs(0);
+            optionalComplexType.setParticle(optionalAll);
+        } else {
+            XmlSchemaSequence optionalSequence = new XmlSchemaSequence();
+            optionalSequence.getItems().addAll(((XmlSchemaSequence) recordComplexType.getParticle()).getItems());
+            optionalSequence.setMinOccurs(0);
+            optionalComplexType.setParticle(optionalSequence);
+        }
+    }
+
 }
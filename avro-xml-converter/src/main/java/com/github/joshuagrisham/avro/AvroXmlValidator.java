@@ -0,0 +1,188 @@
+package com.github.joshuagrisham.avro;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.ws.commons.schema.XmlSchema;
+import org.xml.sax.SAXException;
+
+/**
+ * Validates the XML of Avro records (as written by the {@link AvroXmlDataConverter}) against the XML Schema which
+ * {@link AvroXmlSchemaConverter} converts their Avro schema to. The XML Schema is only converted and compiled (into a
+ * {@link javax.xml.validation.Schema}, which is thread-safe) once, and each thread reuses its own {@link Validator}, so
+ * validating a record only costs the validation itself.
+ * <p>
+ * The XML of the records is not in any namespace, so it is validated against the XML Schema without its target
+ * namespace (i.e. the Avro namespace).
+ */
+public class AvroXmlValidator {
+
+    public static final int MAX_CACHED_VALIDATORS = 100;
+
+    // Compiled validators, keyed by the Avro schema's fingerprint and the syntax flags
+    private static final Map<String, AvroXmlValidator> VALIDATORS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AvroXmlValidator> eldest) {
+            return size() > MAX_CACHED_VALIDATORS;
+        }
+    };
+
+    private final javax.xml.validation.Schema validationSchema;
+    private final boolean useAvroEncoderSyntax;
+    private final boolean useLogicalTypes;
+    // Validators are not thread-safe
+    private final ThreadLocal<Validator> validators;
+
+    private AvroXmlValidator(javax.xml.validation.Schema validationSchema, boolean useAvroEncoderSyntax, boolean useLogicalTypes) {
+        this.validationSchema = validationSchema;
+        this.useAvroEncoderSyntax = useAvroEncoderSyntax;
+        this.useLogicalTypes = useLogicalTypes;
+        this.validators = ThreadLocal.withInitial(validationSchema::newValidator);
+    }
+
+    /**
+     * Get the validator for the given Avro schema, compiling its XML Schema if it has not been compiled already.
+     * @param avroSchema
+     * @param useAvroEncoderSyntax
+     * @param useLogicalTypes
+     * @return the (shared) validator
+     * @throws SAXException if the XML Schema can not be compiled
+     */
+    public static AvroXmlValidator get(Schema avroSchema, boolean useAvroEncoderSyntax, boolean useLogicalTypes) throws SAXException {
+        String key = AvroXmlSchemaCache.fingerprint(avroSchema) + (useAvroEncoderSyntax ? ":encoder" : ":default") + (useLogicalTypes ? ":logical" : "");
+        synchronized (VALIDATORS) {
+            AvroXmlValidator validator = VALIDATORS.get(key);
+            if (validator != null)
+                return validator;
+        }
+
+        // Compile outside of the lock, same as AvroXmlSchemaCache
+        AvroXmlValidator validator = compile(avroSchema, useAvroEncoderSyntax, useLogicalTypes);
+        synchronized (VALIDATORS) {
+            VALIDATORS.put(key, validator);
+        }
+        return validator;
+    }
+
+    /**
+     * Compile a new validator for the given Avro schema (without caching it).
+     * @param avroSchema
+     * @param useAvroEncoderSyntax
+     * @param useLogicalTypes
+     * @return the validator
+     * @throws SAXException if the XML Schema can not be compiled
+     */
+    public static AvroXmlValidator compile(Schema avroSchema, boolean useAvroEncoderSyntax, boolean useLogicalTypes) throws SAXException {
+        XmlSchema xmlSchema = AvroXmlSchemaConverter.convert(avroSchema, useAvroEncoderSyntax, useLogicalTypes, false);
+        StringWriter xsd = new StringWriter();
+        xmlSchema.write(xsd);
+        // SchemaFactory is not thread-safe, so each compilation has its own
+        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        return new AvroXmlValidator(schemaFactory.newSchema(new StreamSource(new StringReader(xsd.toString()))), useAvroEncoderSyntax, useLogicalTypes);
+    }
+
+    public static void clear() {
+        synchronized (VALIDATORS) {
+            VALIDATORS.clear();
+        }
+    }
+
+    public javax.xml.validation.Schema getValidationSchema() {
+        return validationSchema;
+    }
+
+    public boolean isUseAvroEncoderSyntax() {
+        return useAvroEncoderSyntax;
+    }
+
+    public boolean isUseLogicalTypes() {
+        return useLogicalTypes;
+    }
+
+    /**
+     * Validate the XML document of one record.
+     * @param xml
+     * @throws SAXException if the XML is not valid
+     * @throws IOException
+     */
+    public void validate(String xml) throws SAXException, IOException {
+        Validator validator = validators.get();
+        try {
+            validator.validate(new StreamSource(new StringReader(xml)));
+        } catch (SAXException | IOException e) {
+            // make sure that nothing of the failed validation is left for the next one
+            validator.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * Convert the record to XML (with the same syntax as the validator was compiled for) and validate it.
+     * @param record
+     * @param usePrettyPrinter
+     * @return the valid XML document
+     * @throws SAXException if the XML is not valid
+     * @throws IOException
+     */
+    public String convert(GenericRecord record, boolean usePrettyPrinter) throws SAXException, IOException {
+        String xml = AvroXmlDataConverter.convert(record, useAvroEncoderSyntax, usePrettyPrinter, useLogicalTypes);
+        validate(xml);
+        return xml;
+    }
+
+    /**
+     * Converts all of the records to XML in the same way as
+     * {@link AvroXmlDataConverter#convertAll(Iterator, Writer, boolean, boolean, boolean, String)}, but validates the
+     * XML of each record before it is written, so that the output stops at the first invalid record.
+     * @param records
+     * @param writer
+     * @param usePrettyPrinter
+     * @param rootElementName name of the root element wrapping all records in a single document, or null to write
+     *                        one document per record (separated by a newline)
+     * @return the number of records converted
+     * @throws SAXException if the XML of a record is not valid
+     * @throws IOException
+     */
+    public long convertAll(Iterator<? extends GenericRecord> records, Writer writer, boolean usePrettyPrinter, String rootElementName) throws SAXException, IOException {
+        // Each record is converted to this buffer and validated by itself before it is written
+        StringWriter buffer = new StringWriter();
+        long count = 0;
+        while (records.hasNext()) {
+            GenericRecord record = records.next();
+            buffer.getBuffer().setLength(0);
+            if (rootElementName == null) {
+                AvroXmlDataConverter.convert(record, useAvroEncoderSyntax, usePrettyPrinter, useLogicalTypes, buffer);
+                // The pretty printer already ends each document with a newline
+                if (!usePrettyPrinter)
+                    buffer.write('\n');
+            } else {
+                // The record as it is indented within the root element, which is still a document by itself
+                if (count == 0)
+                    writer.write(AvroXmlDataConverter.rootStartTag(rootElementName));
+                AvroXmlDataConverter.convertAllWithinRoot(List.of(record).iterator(), buffer, useAvroEncoderSyntax, usePrettyPrinter, useLogicalTypes);
+            }
+            validate(buffer.toString());
+            writer.append(buffer.getBuffer());
+            count++;
+        }
+        if (rootElementName != null)
+            writer.write(count == 0
+                ? AvroXmlDataConverter.emptyRootElement(rootElementName, usePrettyPrinter)
+                : AvroXmlDataConverter.rootEndTag(rootElementName, usePrettyPrinter));
+        return count;
+    }
+
+}
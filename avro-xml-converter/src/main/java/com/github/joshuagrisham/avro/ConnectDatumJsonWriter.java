@@ -0,0 +1,234 @@
+package com.github.joshuagrisham.avro;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Time;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.DataException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * Writes Kafka Connect data directly to a Jackson {@link JsonGenerator} (such as the XML generator of an XmlMapper) by
+ * walking the {@link Struct} against its Connect {@link Schema}, without first converting it to an Avro record.
+ * <p>
+ * The generated tokens are the same as {@link AvroDatumJsonWriter} (without "Avro Encoder Syntax") would generate for
+ * the Avro record which Confluent's <code>AvroData.fromConnectData</code> (with its default config) converts the
+ * struct to, so the resulting output is identical to the output of going via Avro. The "Avro Encoder Syntax" is not
+ * supported since it depends on the names of the Avro union branches, which only exist in the converted Avro schema.
+ */
+public final class ConnectDatumJsonWriter {
+
+    // Same as AvroData: the name of records converted from structs without a name, and the namespace of such records
+    public static final String DEFAULT_SCHEMA_NAME = "ConnectDefault";
+    public static final String NAMESPACE = "io.confluent.connect.avro";
+    // Same as AvroData: bytes with this parameter are converted to an Avro fixed of that size
+    public static final String CONNECT_AVRO_FIXED_SIZE_PROP = "connect.fixed.size";
+
+    private ConnectDatumJsonWriter() {}
+
+    /**
+     * Wraps the given struct as a {@link JsonSerializable} so that it can be written using any Jackson ObjectMapper
+     * or ObjectWriter (e.g. with a root name).
+     * @param schema
+     * @param struct
+     * @return the wrapped struct
+     */
+    public static JsonSerializable asJsonSerializable(Schema schema, Struct struct) {
+        return new JsonSerializable.Base() {
+            @Override
+            public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+                write(gen, schema, struct);
+            }
+
+            @Override
+            public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+                throws IOException
+            {
+                serialize(gen, serializers);
+            }
+        };
+    }
+
+    public static void write(JsonGenerator gen, Schema schema, Struct struct) throws IOException {
+        if (schema.type() != Schema.Type.STRUCT)
+            throw new DataException("Only structs can be written as records, not " + schema.type());
+        writeValue(gen, schema, struct);
+    }
+
+    /**
+     * @return the name of the Avro record which AvroData would convert the struct schema to (i.e. the name of its root
+     * element), which is the last part of the schema's name or {@link #DEFAULT_SCHEMA_NAME} if it does not have one
+     */
+    public static String recordName(Schema schema) {
+        if (schema.name() == null)
+            return DEFAULT_SCHEMA_NAME;
+        return schema.name().substring(schema.name().lastIndexOf('.') + 1);
+    }
+
+    /**
+     * @return the namespace of the Avro record which AvroData would convert the struct schema to
+     */
+    public static String recordNamespace(Schema schema) {
+        if (schema.name() == null)
+            return NAMESPACE;
+        int lastDot = schema.name().lastIndexOf('.');
+        return lastDot < 0 ? null : schema.name().substring(0, lastDot);
+    }
+
+    /**
+     * @return true if AvroData would convert the map schema to an Avro map, otherwise it is converted to an array of
+     * key/value records
+     */
+    public static boolean isAvroMap(Schema schema) {
+        return schema.keySchema().type() == Schema.Type.STRING && !schema.keySchema().isOptional();
+    }
+
+    /*
+     * Each value is written the same as AvroDatumJsonWriter writes the datum which AvroData would convert it to
+     */
+
+    private static void writeValue(JsonGenerator gen, Schema schema, Object value) throws IOException {
+        if (value == null) {
+            if (!schema.isOptional())
+                throw new DataException("Found null value for non-optional schema");
+            gen.writeNull();
+            return;
+        }
+
+        // Logical types are written as their underlying Connect values (i.e. the same as AvroData converts them to)
+        if (schema.name() != null) {
+            switch (schema.name()) {
+                case Decimal.LOGICAL_NAME:
+                    value = Decimal.fromLogical(schema, (BigDecimal) value);
+                    break;
+                case Date.LOGICAL_NAME:
+                    value = Date.fromLogical(schema, (java.util.Date) value);
+                    break;
+                case Time.LOGICAL_NAME:
+                    value = Time.fromLogical(schema, (java.util.Date) value);
+                    break;
+                case Timestamp.LOGICAL_NAME:
+                    value = Timestamp.fromLogical(schema, (java.util.Date) value);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        switch (schema.type()) {
+            case STRUCT:
+                Struct struct = (Struct) value;
+                gen.writeStartObject();
+                for (Field field : schema.fields()) {
+                    gen.writeFieldName(field.name());
+                    // same as AvroData, a missing value is replaced by the field's default value (if it has one)
+                    writeValue(gen, field.schema(), struct.get(field));
+                }
+                gen.writeEndObject();
+                break;
+            case ARRAY:
+                gen.writeStartArray();
+                for (Object element : (Collection<?>) value)
+                    writeValue(gen, schema.valueSchema(), element);
+                gen.writeEndArray();
+                break;
+            case MAP:
+                if (isAvroMap(schema)) {
+                    // AvroData copies the entries to a new HashMap, so write them in the same order as that would
+                    Map<String, Object> entries = new HashMap<>();
+                    for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+                        entries.put((String) entry.getKey(), entry.getValue());
+                    gen.writeStartObject();
+                    for (Map.Entry<String, Object> entry : entries.entrySet()) {
+                        gen.writeFieldName(entry.getKey());
+                        writeValue(gen, schema.valueSchema(), entry.getValue());
+                    }
+                    gen.writeEndObject();
+                } else {
+                    // otherwise it is an array of key/value records, in the same order as the map
+                    gen.writeStartArray();
+                    for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                        gen.writeStartObject();
+                        gen.writeFieldName("key");
+                        writeValue(gen, schema.keySchema(), entry.getKey());
+                        gen.writeFieldName("value");
+                        writeValue(gen, schema.valueSchema(), entry.getValue());
+                        gen.writeEndObject();
+                    }
+                    gen.writeEndArray();
+                }
+                break;
+            case STRING:
+                gen.writeString(value.toString());
+                break;
+            case BYTES:
+                if (schema.parameters() != null && schema.parameters().containsKey(CONNECT_AVRO_FIXED_SIZE_PROP)) {
+                    // GenericData.Fixed.toString() gives the same as Arrays.toString(bytes)
+                    gen.writeStartArray();
+                    for (byte b : bytes(value))
+                        gen.writeNumber((int) b);
+                    gen.writeEndArray();
+                } else if (value instanceof ByteBuffer) {
+                    gen.writeString(StandardCharsets.ISO_8859_1.decode(((ByteBuffer) value).duplicate()).toString());
+                } else {
+                    gen.writeString(new String((byte[]) value, StandardCharsets.ISO_8859_1));
+                }
+                break;
+            case INT8:
+            case INT16:
+            case INT32:
+            case INT64:
+                long longValue = ((Number) value).longValue();
+                if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE)
+                    gen.writeNumber((int) longValue);
+                else
+                    gen.writeNumber(longValue);
+                break;
+            case FLOAT32:
+                float floatValue = (Float) value;
+                if (Float.isNaN(floatValue) || Float.isInfinite(floatValue))
+                    gen.writeString(value.toString());
+                else // JSON string is re-parsed as a double
+                    gen.writeNumber(Double.parseDouble(value.toString()));
+                break;
+            case FLOAT64:
+                double doubleValue = (Double) value;
+                if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue))
+                    gen.writeString(value.toString());
+                else
+                    gen.writeNumber(doubleValue);
+                break;
+            case BOOLEAN:
+                gen.writeBoolean((Boolean) value);
+                break;
+            default:
+                throw new DataException("Unsupported Connect Schema Type: " + schema.type());
+        }
+    }
+
+    private static byte[] bytes(Object value) {
+        if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+        return (byte[]) value;
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.github.joshuagrisham.avro;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import javax.xml.namespace.QName;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+
+/**
+ * Converts Kafka Connect {@link Struct}s directly to XML, without first converting them to Avro records (e.g. using
+ * Confluent's <code>AvroData.fromConnectData</code>) for the {@link AvroXmlDataConverter}. The resulting XML is the
+ * same as the {@link AvroXmlDataConverter} gives for the converted Avro record (without "Avro Encoder Syntax"); see
+ * {@link ConnectDatumJsonWriter} and {@link ConnectXmlSchemaConverter} for the matching XML Schema.
+ */
+public class ConnectXmlDataConverter {
+
+    public static String convert(Struct struct) throws JsonProcessingException {
+        return convert(struct.schema(), struct, false);
+    }
+
+    public static String convert(Struct struct, boolean usePrettyPrinter) throws JsonProcessingException {
+        return convert(struct.schema(), struct, usePrettyPrinter);
+    }
+
+    public static String convert(Schema schema, Struct struct, boolean usePrettyPrinter) throws JsonProcessingException {
+        return (usePrettyPrinter ? AvroXmlDataConverter.XML_PRETTY_WRITER : AvroXmlDataConverter.XML_WRITER)
+            .withRootName(ConnectDatumJsonWriter.recordName(schema))
+            .writeValueAsString(ConnectDatumJsonWriter.asJsonSerializable(schema, struct));
+    }
+
+    /**
+     * Converts all of the structs to XML, written directly to the output stream as UTF-8.
+     * @param structs
+     * @param outputStream
+     * @param usePrettyPrinter
+     * @param rootElementName name of the root element wrapping all records in a single document, or null to write
+     *                        one document per record (separated by a newline)
+     * @return the number of structs converted
+     * @throws IOException
+     */
+    public static long convertAll(Iterator<Struct> structs, OutputStream outputStream, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        long count = convertAll(structs, writer, usePrettyPrinter, rootElementName);
+        // Flush whatever is left in the encoder but leave closing the stream to the caller
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Converts all of the structs to XML, written directly to the writer, in the same way as
+     * {@link AvroXmlDataConverter#convertAll(Iterator, Writer, boolean, boolean, String)}.
+     * @param structs
+     * @param writer
+     * @param usePrettyPrinter
+     * @param rootElementName name of the root element wrapping all records in a single document, or null to write
+     *                        one document per record (separated by a newline)
+     * @return the number of structs converted
+     * @throws IOException
+     */
+    public static long convertAll(Iterator<Struct> structs, Writer writer, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        long count = 0;
+        if (rootElementName != null) {
+            try (ToXmlGenerator generator = AvroXmlDataConverter.createGenerator(writer, usePrettyPrinter)) {
+                generator.setNextName(new QName(rootElementName));
+                generator.writeStartObject();
+                while (structs.hasNext()) {
+                    Struct struct = structs.next();
+                    generator.writeFieldName(ConnectDatumJsonWriter.recordName(struct.schema()));
+                    ConnectDatumJsonWriter.write(generator, struct.schema(), struct);
+                    count++;
+                }
+                generator.writeEndObject();
+            }
+        } else {
+            // XML only allows one root element per document, so each struct needs its own generator
+            while (structs.hasNext()) {
+                Struct struct = structs.next();
+                try (ToXmlGenerator generator = AvroXmlDataConverter.createGenerator(writer, usePrettyPrinter)) {
+                    generator.setNextName(new QName(ConnectDatumJsonWriter.recordName(struct.schema())));
+                    ConnectDatumJsonWriter.write(generator, struct.schema(), struct);
+                }
+                // The pretty printer already ends each document with a newline
+                if (!usePrettyPrinter)
+                    writer.write('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,293 @@
+package com.github.joshuagrisham.avro;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.xml.namespace.QName;
+
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.ws.commons.schema.XmlSchema;
+import org.apache.ws.commons.schema.XmlSchemaAll;
+import org.apache.ws.commons.schema.XmlSchemaAny;
+import org.apache.ws.commons.schema.XmlSchemaCollection;
+import org.apache.ws.commons.schema.XmlSchemaComplexType;
+import org.apache.ws.commons.schema.XmlSchemaContentProcessing;
+import org.apache.ws.commons.schema.XmlSchemaElement;
+import org.apache.ws.commons.schema.XmlSchemaEnumerationFacet;
+import org.apache.ws.commons.schema.XmlSchemaFacet;
+import org.apache.ws.commons.schema.XmlSchemaSequence;
+import org.apache.ws.commons.schema.XmlSchemaSimpleType;
+import org.apache.ws.commons.schema.constants.Constants;
+import org.apache.ws.commons.schema.utils.NamespaceMap;
+
+/**
+ * Converts a Kafka Connect {@link Schema} directly to an XML Schema, without first converting it to an Avro schema.
+ * <p>
+ * The result is the same as {@link AvroXmlSchemaConverter} (without "Avro Encoder Syntax") gives for the Avro schema
+ * which Confluent's <code>AvroData.fromConnectSchema</code> (with its default config) converts the Connect schema to,
+ * i.e. it describes the XML written by {@link ConnectXmlDataConverter}:
+ * <ul>
+ * <li>optional schemas (which are converted to a union of null and the schema) are optional elements, which also
+ * allow an empty element</li>
+ * <li>structs are named complexTypes, where structs without a name are named <code>ConnectDefault</code>,
+ * <code>ConnectDefault2</code>, etc. in the order they are converted</li>
+ * <li>maps with (non-optional) string keys allow any elements, while other maps (which are converted to an array of
+ * <code>MapEntry</code> key/value records) are unbounded <code>MapEntry</code> elements</li>
+ * <li>strings with AvroData's enum parameters are (named) enumerations of their symbols, and bytes with a fixed size
+ * are exactly that many <code>xs:byte</code> elements</li>
+ * <li>logical types are the same as their underlying types</li>
+ * </ul>
+ */
+public class ConnectXmlSchemaConverter {
+
+    // Same as AvroData: the name of the key/value records which maps without string keys are converted to
+    public static final String MAP_ENTRY_TYPE_NAME = ConnectDatumJsonWriter.NAMESPACE + ".MapEntry";
+
+    // Same as AvroData: strings with this parameter (the enum's name) are converted to an Avro enum, whose symbols are
+    // the values of the parameters prefixed with it
+    public static final String CONNECT_AVRO_ENUM_PROP = "io.confluent.connect.avro.Enum";
+
+    // Mapping from the Connect types which are not structs, arrays or maps to XSD types, via the Avro types they are converted to
+    public static final Map<Schema.Type, QName> TYPEMAP = Map.of(
+        Schema.Type.BOOLEAN, Constants.XSD_BOOLEAN,
+        Schema.Type.BYTES, Constants.XSD_STRING,
+        Schema.Type.FLOAT32, Constants.XSD_FLOAT,
+        Schema.Type.FLOAT64, Constants.XSD_DOUBLE,
+        Schema.Type.INT8, Constants.XSD_INT,
+        Schema.Type.INT16, Constants.XSD_INT,
+        Schema.Type.INT32, Constants.XSD_INT,
+        Schema.Type.INT64, Constants.XSD_LONG,
+        Schema.Type.STRING, Constants.XSD_STRING
+    );
+
+    /**
+     * The names of the complexTypes which have already been created, and how many structs without a name have been
+     * converted (so that each of them gets its own name, the same as AvroData gives them).
+     */
+    private static class NamedTypes {
+        private final Map<String, QName> types = new HashMap<>();
+        private int defaultSchemaNameIndex;
+
+        private String fullName(Schema connectSchema) {
+            if (connectSchema.name() != null)
+                return connectSchema.name();
+            defaultSchemaNameIndex++;
+            return ConnectDatumJsonWriter.NAMESPACE + "." + ConnectDatumJsonWriter.DEFAULT_SCHEMA_NAME +
+                (defaultSchemaNameIndex > 1 ? defaultSchemaNameIndex : "");
+        }
+    }
+
+    /**
+     * Build the XmlSchemaElement for the given Connect schema, in the same way as {@link AvroXmlSchemaConverter} builds
+     * it for the Avro schema which it would be converted to.
+     * @param name
+     * @param connectSchema
+     * @param ignoreOptional true if the schema is the non-null branch of its own optional union
+     * @param parentXmlSchema
+     * @param namedTypes
+     * @param isOptional
+     * @param topLevel
+     * @return the element
+     */
+    private static XmlSchemaElement getXmlSchemaElement(QName name, Schema connectSchema, boolean ignoreOptional, XmlSchema parentXmlSchema, NamedTypes namedTypes, boolean isOptional, boolean topLevel) {
+
+        XmlSchemaElement element = new XmlSchemaElement(parentXmlSchema, topLevel);
+
+        element.setName(name.getLocalPart());
+        if (isOptional)
+            element.setMinOccurs(0);
+
+        // Optional schemas are unions of null and the schema itself, which are just optional elements of the schema
+        if (connectSchema.isOptional() && !ignoreOptional) {
+            element = getXmlSchemaElement(name, connectSchema, true, parentXmlSchema, namedTypes, true, false);
+            // null is written as an empty element, which simple types other than strings do not allow by themselves
+            AvroXmlSchemaConverter.allowEmpty(element, parentXmlSchema);
+            return element;
+        }
+
+        switch (connectSchema.type()) {
+
+            case STRUCT:
+                // Same as Avro records, each struct is only created once as a top-level named complexType which every occurrence references
+                String fullName = namedTypes.fullName(connectSchema);
+                QName recordTypeName = namedTypes.types.get(fullName);
+                if (recordTypeName == null) {
+                    String shortName = fullName.substring(fullName.lastIndexOf('.') + 1);
+                    recordTypeName = new QName(name.getNamespaceURI(), shortName);
+                    if (parentXmlSchema.getTypeByName(recordTypeName) != null)
+                        recordTypeName = new QName(name.getNamespaceURI(), fullName);
+                    namedTypes.types.put(fullName, recordTypeName);
+
+                    XmlSchemaComplexType recordComplexType = new XmlSchemaComplexType(parentXmlSchema, true);
+                    recordComplexType.setName(recordTypeName.getLocalPart());
+                    XmlSchemaAll recordAll = new XmlSchemaAll();
+                    XmlSchemaSequence recordSequence = new XmlSchemaSequence();
+
+                    // Same as for Avro records, any (non-optional) arrays or fixed need a sequence to allow for maxOccurs > 1
+                    boolean hasArray = false;
+                    for (Field recordField : connectSchema.fields()) {
+                        if (isRepeated(recordField.schema()))
+                            hasArray = true;
+                    }
+
+                    for (Field recordField : connectSchema.fields()) {
+                        XmlSchemaElement fieldElement = getXmlSchemaElement(
+                            new QName(name.getNamespaceURI(),
+                                recordField.name()),
+                            recordField.schema(),
+                            false,
+                            parentXmlSchema,
+                            namedTypes,
+                            false,
+                            false);
+                        if (hasArray)
+                            recordSequence.getItems().add(fieldElement);
+                        else
+                            recordAll.getItems().add(fieldElement);
+                    }
+                    recordComplexType.setParticle(hasArray ? recordSequence : recordAll);
+                    AvroXmlSchemaConverter.completeOptionalType(recordComplexType, parentXmlSchema);
+                }
+
+                element.setSchemaTypeName(recordTypeName);
+
+                break;
+
+            case MAP:
+                if (!ConnectDatumJsonWriter.isAvroMap(connectSchema)) {
+                    // Maps without string keys are arrays of key/value records
+                    element = getXmlSchemaElement(name, mapEntrySchema(connectSchema), false, parentXmlSchema, namedTypes, isOptional, false);
+                    element.setMaxOccurs(Long.MAX_VALUE);
+                    break;
+                }
+
+                XmlSchemaComplexType mapComplexType = new XmlSchemaComplexType(parentXmlSchema, topLevel);
+                XmlSchemaSequence mapSequence = new XmlSchemaSequence();
+                XmlSchemaAny mapAny = new XmlSchemaAny();
+                if (isOptional)
+                    mapAny.setMinOccurs(0);
+                mapAny.setMaxOccurs(Long.MAX_VALUE);
+                // the keys are not declared anywhere, so just skip validating them
+                mapAny.setProcessContent(XmlSchemaContentProcessing.SKIP);
+                mapSequence.getItems().add(mapAny);
+                mapComplexType.setParticle(mapSequence);
+
+                if (topLevel) {
+                    mapComplexType.setName(name.getLocalPart());
+                    element.setSchemaTypeName(name);
+                } else {
+                    element.setType(mapComplexType);
+                }
+
+                break;
+
+            case ARRAY:
+                element = getXmlSchemaElement(name, connectSchema.valueSchema(), false, parentXmlSchema, namedTypes, isOptional, false);
+                element.setMaxOccurs(Long.MAX_VALUE);
+                break;
+
+            case STRING:
+                if (!hasParameter(connectSchema, CONNECT_AVRO_ENUM_PROP)) {
+                    element.setSchemaTypeName(TYPEMAP.get(connectSchema.type()));
+                    break;
+                }
+                // Same as Avro enums, each enum is only created once as a top-level named simpleType
+                String enumFullName = connectSchema.parameters().get(CONNECT_AVRO_ENUM_PROP);
+                QName enumTypeName = namedTypes.types.get(enumFullName);
+                if (enumTypeName == null) {
+                    String shortName = enumFullName.substring(enumFullName.lastIndexOf('.') + 1);
+                    enumTypeName = new QName(name.getNamespaceURI(), shortName);
+                    if (parentXmlSchema.getTypeByName(enumTypeName) != null)
+                        enumTypeName = new QName(name.getNamespaceURI(), enumFullName);
+                    namedTypes.types.put(enumFullName, enumTypeName);
+
+                    XmlSchemaFacet[] symbols = connectSchema.parameters().entrySet().stream()
+                        .filter(parameter -> parameter.getKey().startsWith(CONNECT_AVRO_ENUM_PROP + "."))
+                        .map(Entry::getValue)
+                        .map(symbol -> new XmlSchemaEnumerationFacet(symbol, false))
+                        .toArray(XmlSchemaFacet[]::new);
+                    XmlSchemaSimpleType enumSimpleType = AvroXmlSchemaConverter.restrictedSimpleType(parentXmlSchema, true, Constants.XSD_STRING, symbols);
+                    enumSimpleType.setName(enumTypeName.getLocalPart());
+                }
+                element.setSchemaTypeName(enumTypeName);
+                break;
+
+            case BYTES:
+                if (hasParameter(connectSchema, ConnectDatumJsonWriter.CONNECT_AVRO_FIXED_SIZE_PROP)) {
+                    // Same as Avro fixed, written as exactly one element per (signed) byte
+                    int size = Integer.parseInt(connectSchema.parameters().get(ConnectDatumJsonWriter.CONNECT_AVRO_FIXED_SIZE_PROP));
+                    element.setSchemaTypeName(Constants.XSD_BYTE);
+                    if (!isOptional)
+                        element.setMinOccurs(size);
+                    element.setMaxOccurs(size);
+                } else {
+                    element.setSchemaTypeName(TYPEMAP.get(connectSchema.type()));
+                }
+                break;
+
+            case BOOLEAN:
+            case FLOAT32:
+            case FLOAT64:
+            case INT8:
+            case INT16:
+            case INT32:
+            case INT64:
+                element.setSchemaTypeName(TYPEMAP.get(connectSchema.type()));
+                break;
+
+            default:
+                throw new UnsupportedOperationException("Unsupported Connect Schema Type: " + connectSchema.type());
+        }
+
+        return element;
+    }
+
+    /**
+     * @return true if AvroData would convert the schema to an Avro array or fixed (and not e.g. a union with null),
+     * which are written as repeated elements
+     */
+    private static boolean isRepeated(Schema connectSchema) {
+        if (connectSchema.isOptional())
+            return false;
+        return connectSchema.type() == Schema.Type.ARRAY ||
+            (connectSchema.type() == Schema.Type.MAP && !ConnectDatumJsonWriter.isAvroMap(connectSchema)) ||
+            (connectSchema.type() == Schema.Type.BYTES && hasParameter(connectSchema, ConnectDatumJsonWriter.CONNECT_AVRO_FIXED_SIZE_PROP));
+    }
+
+    private static boolean hasParameter(Schema connectSchema, String parameter) {
+        return connectSchema.parameters() != null && connectSchema.parameters().containsKey(parameter);
+    }
+
+    private static Schema mapEntrySchema(Schema mapSchema) {
+        return SchemaBuilder.struct()
+            .name(MAP_ENTRY_TYPE_NAME)
+            .field("key", mapSchema.keySchema())
+            .field("value", mapSchema.valueSchema())
+            .build();
+    }
+
+    public static XmlSchema convert(Schema connectSchema) {
+        XmlSchemaCollection collection = new XmlSchemaCollection();
+        QName schemaQName;
+
+        // Only (non-optional) structs are converted to Avro records with a name and namespace
+        if (connectSchema.type() == Schema.Type.STRUCT && !connectSchema.isOptional())
+            schemaQName = new QName(ConnectDatumJsonWriter.recordNamespace(connectSchema),
+                ConnectDatumJsonWriter.recordName(connectSchema));
+        else
+            schemaQName = new QName("local", "value");
+
+        XmlSchema xmlSchema = new XmlSchema(schemaQName.getNamespaceURI(), collection);
+        if (schemaQName.getNamespaceURI().isEmpty()) {
+            NamespaceMap namespaces = new NamespaceMap();
+            namespaces.add("xs", Constants.URI_2001_SCHEMA_XSD);
+            xmlSchema.setNamespaceContext(namespaces);
+        }
+        xmlSchema.getElements().put(schemaQName, getXmlSchemaElement(schemaQName, connectSchema, false, xmlSchema, new NamedTypes(), false, true));
+        return xmlSchema;
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.github.joshuagrisham.avro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that exporting a container file in parallel (concatenated or sharded) gives exactly the same XML as
+ * {@link AvroXmlDataConverter#convertAllFromContainer}.
+ */
+public class AvroContainerXmlExporterTest {
+
+    private static final Schema ROW_SCHEMA = SchemaBuilder.record("Row").namespace("com.example").fields()
+        .requiredInt("id")
+        .optionalString("name")
+        .name("tags").type().array().items().stringType().noDefault()
+        .endRecord();
+
+    private static final int ROWS = 2000;
+
+    // Small blocks, so that the file has many of them
+    private static final int SYNC_INTERVAL = 1024;
+
+    private static final String ROOT_ELEMENT_NAME = "rows";
+
+    /**
+     * Writes a container file of {@link #ROWS} rows in blocks of about {@link #SYNC_INTERVAL} bytes.
+     */
+    private static File containerFile() throws IOException {
+        File file = Files.createTempFile("rows", ".avro").toFile();
+        try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(ROW_SCHEMA))) {
+            writer.setSyncInterval(SYNC_INTERVAL);
+            writer.create(ROW_SCHEMA, file);
+            for (int id = 0; id < ROWS; id++) {
+                GenericRecord row = new GenericData.Record(ROW_SCHEMA);
+                row.put("id", id);
+                row.put("name", id % 3 == 0 ? null : "row " + id);
+                row.put("tags", List.of("tag" + id % 5));
+                writer.append(row);
+            }
+        }
+        return file;
+    }
+
+    private static String convertAllFromContainer(File file, boolean usePrettyPrinter, String rootElementName) throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            assertEquals(ROWS, AvroXmlDataConverter.convertAllFromContainer(inputStream, null, expected, false, usePrettyPrinter, rootElementName));
+        }
+        return expected.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the XML within the root element, i.e. without its own tags
+     */
+    private static String withinRoot(String xml, boolean usePrettyPrinter) {
+        if (xml.equals(AvroXmlDataConverter.emptyRootElement(ROOT_ELEMENT_NAME, usePrettyPrinter)))
+            return "";
+        String startTag = AvroXmlDataConverter.rootStartTag(ROOT_ELEMENT_NAME);
+        String endTag = AvroXmlDataConverter.rootEndTag(ROOT_ELEMENT_NAME, usePrettyPrinter);
+        assertTrue(xml.startsWith(startTag) && xml.endsWith(endTag));
+        return xml.substring(startTag.length(), xml.length() - endTag.length());
+    }
+
+    @Test
+    public void exportIsTheSameAsConvertAllFromContainer() throws IOException {
+        File file = containerFile();
+        try {
+            // ranges smaller than a block (so that most of them have no records), spanning many blocks, and the whole file
+            for (long splitSize : new long[] { SYNC_INTERVAL / 4, SYNC_INTERVAL * 16L, file.length() }) {
+                for (boolean usePrettyPrinter : new boolean[] { false, true }) {
+                    for (String rootElementName : new String[] { null, ROOT_ELEMENT_NAME }) {
+                        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                        long count = AvroContainerXmlExporter.export(file, null, actual, false, usePrettyPrinter, rootElementName, 4, splitSize);
+                        String message = "split size " + splitSize + ", pretty " + usePrettyPrinter + ", root " + rootElementName;
+                        assertEquals(ROWS, count, message);
+                        assertEquals(convertAllFromContainer(file, usePrettyPrinter, rootElementName), actual.toString(StandardCharsets.UTF_8), message);
+                    }
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void shardsAreTheSameAsConvertAllFromContainer() throws IOException {
+        File file = containerFile();
+        Path directory = Files.createTempDirectory("shards");
+        try {
+            // more shards than blocks leaves some of them empty
+            int manyShards = (int) (file.length() / SYNC_INTERVAL) * 2;
+            for (int shards : new int[] { 1, 3, manyShards }) {
+                List<Path> shardPaths = new ArrayList<>();
+                for (int i = 0; i < shards; i++)
+                    shardPaths.add(directory.resolve("shard-" + i + ".xml"));
+                for (boolean usePrettyPrinter : new boolean[] { false, true }) {
+                    for (String rootElementName : new String[] { null, ROOT_ELEMENT_NAME }) {
+                        long count = AvroContainerXmlExporter.exportSharded(file, null, shardPaths, false, usePrettyPrinter, rootElementName, 4);
+                        String message = "shards " + shards + ", pretty " + usePrettyPrinter + ", root " + rootElementName;
+                        assertEquals(ROWS, count, message);
+
+                        // each shard is a complete output by itself, so with a root element each one has its own
+                        StringBuilder actual = new StringBuilder();
+                        for (Path shardPath : shardPaths) {
+                            String shard = Files.readString(shardPath);
+                            actual.append(rootElementName == null ? shard : withinRoot(shard, usePrettyPrinter));
+                        }
+                        String expected = convertAllFromContainer(file, usePrettyPrinter, rootElementName);
+                        if (rootElementName != null)
+                            expected = withinRoot(expected, usePrettyPrinter);
+                        assertEquals(expected, actual.toString(), message);
+                    }
+                }
+                for (Path shardPath : shardPaths)
+                    Files.delete(shardPath);
+            }
+        } finally {
+            Files.delete(directory);
+            file.delete();
+        }
+    }
+
+}
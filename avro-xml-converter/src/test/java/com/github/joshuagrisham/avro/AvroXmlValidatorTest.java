@@ -0,0 +1,155 @@
+package com.github.joshuagrisham.avro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
+
+/**
+ * Tests that the XML written by {@link AvroXmlDataConverter} is valid against the XML Schema which
+ * {@link AvroXmlSchemaConverter} gives for the same Avro schema, with each syntax.
+ */
+public class AvroXmlValidatorTest {
+
+    private static final Schema NODE_SCHEMA = new Schema.Parser().parse("""
+        {"type": "record", "name": "Node", "namespace": "com.example", "fields": [
+          {"name": "value", "type": "int"},
+          {"name": "tags", "type": {"type": "array", "items": "string"}},
+          {"name": "sub", "type": ["null", {"type": "record", "name": "Sub", "fields": [
+            {"name": "a", "type": "int"},
+            {"name": "b", "type": "string"}
+          ]}], "default": null},
+          {"name": "required", "type": "Sub"},
+          {"name": "next", "type": ["null", "Node"], "default": null}
+        ]}
+        """);
+
+    private static final Schema STATUS_SCHEMA = SchemaBuilder.enumeration("Status").namespace("com.example")
+        .symbols("NEW", "PAID");
+
+    private static final Schema ORDER_SCHEMA = SchemaBuilder.record("Order").namespace("com.example").fields()
+        .requiredLong("id")
+        .optionalString("note")
+        .optionalInt("quantity")
+        .name("status").type(STATUS_SCHEMA).noDefault()
+        .name("optionalStatus").type().optional().type(STATUS_SCHEMA)
+        .name("hash").type().fixed("Hash").size(4).noDefault()
+        .name("attributes").type().map().values().intType().noDefault()
+        .name("price").type(LogicalTypes.decimal(8, 2).addToSchema(Schema.create(Schema.Type.BYTES))).noDefault()
+        .name("day").type(LogicalTypes.date().addToSchema(Schema.create(Schema.Type.INT))).noDefault()
+        .name("at").type(LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG))).noDefault()
+        .name("id2").type(LogicalTypes.uuid().addToSchema(Schema.create(Schema.Type.STRING))).noDefault()
+        .endRecord();
+
+    /**
+     * @return linked lists of 1 to 4 nodes, every other one with an optional sub record
+     */
+    private static List<GenericRecord> nodes() {
+        Schema subSchema = NODE_SCHEMA.getField("required").schema();
+        List<GenericRecord> nodes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            GenericRecord next = null;
+            for (int depth = i % 4; depth >= 0; depth--) {
+                GenericRecord sub = new GenericData.Record(subSchema);
+                sub.put("a", depth);
+                sub.put("b", "b" + depth);
+                GenericRecord node = new GenericData.Record(NODE_SCHEMA);
+                node.put("value", depth);
+                node.put("tags", List.of("tag" + depth));
+                node.put("sub", i % 2 == 0 ? null : sub);
+                node.put("required", sub);
+                node.put("next", next);
+                next = node;
+            }
+            nodes.add(next);
+        }
+        return nodes;
+    }
+
+    /**
+     * @return one order with all of its optional fields set, and one with all of them null
+     */
+    private static List<GenericRecord> orders() {
+        GenericRecord order = new GenericData.Record(ORDER_SCHEMA);
+        order.put("id", 1L);
+        order.put("note", "note");
+        order.put("quantity", 5);
+        order.put("status", new GenericData.EnumSymbol(STATUS_SCHEMA, "PAID"));
+        order.put("optionalStatus", new GenericData.EnumSymbol(STATUS_SCHEMA, "NEW"));
+        order.put("hash", new GenericData.Fixed(ORDER_SCHEMA.getField("hash").schema(), new byte[] { 65, 66, 67, 68 }));
+        order.put("attributes", Map.of("k", 1));
+        // the unscaled value is written as raw bytes without logical types, so keep them printable
+        order.put("price", ByteBuffer.wrap(new BigDecimal("42768.03").unscaledValue().toByteArray()));
+        order.put("day", 19000);
+        order.put("at", 1700000000123L);
+        order.put("id2", "123e4567-e89b-12d3-a456-426614174000");
+
+        GenericRecord emptyOrder = new GenericData.Record((GenericData.Record) order, true);
+        emptyOrder.put("note", null);
+        emptyOrder.put("quantity", null);
+        emptyOrder.put("optionalStatus", null);
+        return List.of(order, emptyOrder);
+    }
+
+    private static void assertAllValid(Schema schema, List<GenericRecord> records) throws Exception {
+        for (boolean useAvroEncoderSyntax : new boolean[] { false, true }) {
+            for (boolean useLogicalTypes : new boolean[] { false, true }) {
+                AvroXmlValidator validator = AvroXmlValidator.get(schema, useAvroEncoderSyntax, useLogicalTypes);
+                for (boolean usePrettyPrinter : new boolean[] { false, true }) {
+                    for (GenericRecord record : records)
+                        validator.validate(AvroXmlDataConverter.convert(record, useAvroEncoderSyntax, usePrettyPrinter, useLogicalTypes));
+
+                    // and the validated output is exactly the same as the converter's own
+                    for (String rootElementName : new String[] { null, "records" }) {
+                        StringWriter validated = new StringWriter();
+                        StringWriter converted = new StringWriter();
+                        validator.convertAll(records.iterator(), validated, usePrettyPrinter, rootElementName);
+                        AvroXmlDataConverter.convertAll(records.iterator(), converted, useAvroEncoderSyntax, usePrettyPrinter, useLogicalTypes, rootElementName);
+                        assertEquals(converted.toString(), validated.toString());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void optionalAndRecursiveRecordsAreValid() throws Exception {
+        // null optional records (including the end of every linked list) are written as empty elements
+        assertAllValid(NODE_SCHEMA, nodes());
+    }
+
+    @Test
+    public void facetedTypesAreValid() throws Exception {
+        assertAllValid(ORDER_SCHEMA, orders());
+    }
+
+    @Test
+    public void invalidValuesAreRejected() throws Exception {
+        AvroXmlValidator validator = AvroXmlValidator.get(ORDER_SCHEMA, false, true);
+        String xml = AvroXmlDataConverter.convert(orders().get(0), false, false, true);
+        assertThrows(SAXException.class, () -> validator.validate(xml.replace("PAID", "LOST")));
+        assertThrows(SAXException.class, () -> validator.validate(xml.replace("42768.03", "4276803.12")));
+        assertThrows(SAXException.class, () -> validator.validate(xml.replace("2022-01-08", "19000")));
+        // a failed validation does not affect the next one
+        validator.validate(xml);
+    }
+
+    @Test
+    public void validatorsAreCached() throws Exception {
+        assertEquals(AvroXmlValidator.get(NODE_SCHEMA, false, false), AvroXmlValidator.get(NODE_SCHEMA, false, false));
+    }
+
+}
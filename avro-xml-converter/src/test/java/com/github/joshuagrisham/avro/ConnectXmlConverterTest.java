@@ -0,0 +1,168 @@
+package com.github.joshuagrisham.avro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.connect.data.Date;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Time;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.ws.commons.schema.XmlSchema;
+import org.junit.jupiter.api.Test;
+
+import io.confluent.connect.avro.AvroData;
+
+/**
+ * Tests that {@link ConnectXmlDataConverter} and {@link ConnectXmlSchemaConverter} give exactly the same XML and XSD
+ * as converting the Connect data with Confluent's {@link AvroData} first and then using {@link AvroXmlDataConverter}
+ * and {@link AvroXmlSchemaConverter}.
+ */
+public class ConnectXmlConverterTest {
+
+    // Structs without a name, which AvroData names ConnectDefault2, ConnectDefault3, etc.
+    private static final Schema NESTED_SCHEMA = SchemaBuilder.struct()
+        .field("a", Schema.INT32_SCHEMA)
+        .field("b", Schema.OPTIONAL_STRING_SCHEMA)
+        .build();
+    private static final Schema OPTIONAL_NESTED_SCHEMA = SchemaBuilder.struct().optional()
+        .field("c", Schema.INT16_SCHEMA)
+        .build();
+    private static final Schema ITEM_SCHEMA = SchemaBuilder.struct()
+        .field("sku", Schema.STRING_SCHEMA)
+        .field("quantity", Schema.OPTIONAL_INT32_SCHEMA)
+        .build();
+
+    private static Schema orderSchema(String name) {
+        SchemaBuilder builder = SchemaBuilder.struct();
+        if (name != null)
+            builder.name(name);
+        return builder
+            .field("id", Schema.INT64_SCHEMA)
+            .field("small", Schema.INT8_SCHEMA)
+            .field("note", Schema.OPTIONAL_STRING_SCHEMA)
+            .field("ratio", Schema.OPTIONAL_FLOAT64_SCHEMA)
+            .field("flag", Schema.BOOLEAN_SCHEMA)
+            .field("price", Decimal.schema(2))
+            .field("optionalPrice", Decimal.builder(2).optional().build())
+            .field("day", Date.SCHEMA)
+            .field("optionalDay", Date.builder().optional().build())
+            .field("time", Time.SCHEMA)
+            .field("at", Timestamp.SCHEMA)
+            .field("tags", SchemaBuilder.array(Schema.STRING_SCHEMA).build())
+            .field("optionalScores", SchemaBuilder.array(Schema.INT32_SCHEMA).optional().build())
+            .field("items", SchemaBuilder.array(ITEM_SCHEMA).build())
+            .field("attributes", SchemaBuilder.map(Schema.STRING_SCHEMA, Schema.INT32_SCHEMA).build())
+            .field("keyed", SchemaBuilder.map(Schema.INT32_SCHEMA, Schema.STRING_SCHEMA).build())
+            .field("nested", NESTED_SCHEMA)
+            .field("optionalNested", OPTIONAL_NESTED_SCHEMA)
+            .build();
+    }
+
+    /**
+     * @return one order with all of its optional fields set, and one with all of them null
+     */
+    private static List<Struct> orders(Schema schema) {
+        Map<String, Integer> attributes = new LinkedHashMap<>();
+        attributes.put("k1", 1);
+        attributes.put("k2", 2);
+        Map<Integer, String> keyed = new LinkedHashMap<>();
+        keyed.put(3, "three");
+        keyed.put(1, "one");
+
+        Struct order = new Struct(schema)
+            .put("id", 1L)
+            .put("small", (byte) -3)
+            .put("note", "a <note> & \"more\"")
+            .put("ratio", 0.25)
+            .put("flag", true)
+            // the unscaled value is written as raw bytes without logical types, so keep them printable
+            .put("price", new BigDecimal("42768.03"))
+            .put("optionalPrice", new BigDecimal("42768.03"))
+            .put("day", new java.util.Date(19000L * 24 * 60 * 60 * 1000))
+            .put("optionalDay", new java.util.Date(19001L * 24 * 60 * 60 * 1000))
+            .put("time", new java.util.Date(((1 * 60 + 2) * 60 + 3) * 1000L))
+            .put("at", new java.util.Date(1700000000123L))
+            .put("tags", List.of("a", "b"))
+            .put("optionalScores", List.of(1, 2, 3))
+            .put("items", List.of(
+                new Struct(ITEM_SCHEMA).put("sku", "x").put("quantity", 2),
+                new Struct(ITEM_SCHEMA).put("sku", "y")))
+            .put("attributes", attributes)
+            .put("keyed", keyed)
+            .put("nested", new Struct(NESTED_SCHEMA).put("a", 1).put("b", "b"))
+            .put("optionalNested", new Struct(OPTIONAL_NESTED_SCHEMA).put("c", (short) 9));
+
+        Struct emptyOrder = new Struct(schema)
+            .put("id", 2L)
+            .put("small", (byte) 0)
+            .put("flag", false)
+            .put("price", new BigDecimal("42768.03"))
+            .put("day", new java.util.Date(0))
+            .put("time", new java.util.Date(0))
+            .put("at", new java.util.Date(0))
+            .put("tags", List.of())
+            .put("items", List.of())
+            .put("attributes", Map.of())
+            .put("keyed", Map.of())
+            .put("nested", new Struct(NESTED_SCHEMA).put("a", 0));
+        return List.of(order, emptyOrder);
+    }
+
+    private static String xsd(XmlSchema xmlSchema) {
+        StringWriter writer = new StringWriter();
+        xmlSchema.write(writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void structsAreConvertedToTheSameXml() throws Exception {
+        for (String name : new String[] { null, "com.example.Order", "Order" }) {
+            Schema schema = orderSchema(name);
+            AvroData avroData = new AvroData(10);
+            for (boolean usePrettyPrinter : new boolean[] { false, true }) {
+                for (Struct order : orders(schema)) {
+                    GenericRecord record = (GenericRecord) avroData.fromConnectData(schema, order);
+                    assertEquals(AvroXmlDataConverter.convert(record, false, usePrettyPrinter),
+                        ConnectXmlDataConverter.convert(order, usePrettyPrinter), name);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void allStructsAreConvertedToTheSameXml() throws Exception {
+        Schema schema = orderSchema(null);
+        AvroData avroData = new AvroData(10);
+        List<GenericRecord> records = orders(schema).stream()
+            .map(order -> (GenericRecord) avroData.fromConnectData(schema, order))
+            .toList();
+        for (boolean usePrettyPrinter : new boolean[] { false, true }) {
+            for (String rootElementName : new String[] { null, "orders" }) {
+                StringWriter expected = new StringWriter();
+                StringWriter actual = new StringWriter();
+                AvroXmlDataConverter.convertAll(records.iterator(), expected, false, usePrettyPrinter, rootElementName);
+                ConnectXmlDataConverter.convertAll(orders(schema).iterator(), actual, usePrettyPrinter, rootElementName);
+                assertEquals(expected.toString(), actual.toString());
+            }
+        }
+    }
+
+    @Test
+    public void schemasAreConvertedToTheSameXsd() {
+        for (String name : new String[] { null, "com.example.Order", "Order" }) {
+            Schema schema = orderSchema(name);
+            assertEquals(xsd(AvroXmlSchemaConverter.convert(new AvroData(10).fromConnectSchema(schema), false)),
+                xsd(ConnectXmlSchemaConverter.convert(schema)), name);
+        }
+    }
+
+}
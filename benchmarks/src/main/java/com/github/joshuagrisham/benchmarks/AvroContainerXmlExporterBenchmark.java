@@ -0,0 +1,63 @@
+package com.github.joshuagrisham.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.joshuagrisham.avro.AvroContainerXmlExporter;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroContainerXmlExporterBenchmark {
+
+    // Compare with the number of cores; the XML itself is discarded so that only the conversion is measured
+    @Param({ "1", "4", "16" })
+    public int threads;
+
+    private File containerFile;
+
+    @Setup
+    public void setup() throws IOException {
+        GenericRecord record = BenchmarkData.smallRecord();
+        containerFile = File.createTempFile("benchmark", ".avro");
+        try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(record.getSchema()))) {
+            writer.create(record.getSchema(), containerFile);
+            for (int i = 0; i < 200_000; i++)
+                writer.append(record);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(containerFile.toPath());
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        return AvroContainerXmlExporter.export(containerFile, null, OutputStream.nullOutputStream(), false, false, "records",
+            threads, 1024 * 1024);
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.github.joshuagrisham.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.joshuagrisham.avro.AvroXmlDataConverter;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroJsonEncoderBenchmark {
+
+    private GenericRecord record;
+    private byte[] json;
+    // Reused for every record, as when converting many records of the same schema
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    @Setup
+    public void setup() {
+        record = BenchmarkData.smallRecord();
+        json = AvroXmlDataConverter.convertUsingAvroEncoder(record).getBytes();
+    }
+
+    @Benchmark
+    public String convertUsingAvroEncoder() {
+        return AvroXmlDataConverter.convertUsingAvroEncoder(record);
+    }
+
+    @Benchmark
+    public int convertUsingAvroEncoderToBuffer() {
+        buffer.reset();
+        AvroXmlDataConverter.convertUsingAvroEncoder(record, buffer);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public GenericRecord parseAvroData() {
+        return AvroXmlDataConverter.parseAvroData(record.getSchema(), new ByteArrayInputStream(json));
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.github.joshuagrisham.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.joshuagrisham.avro.AvroXmlDataConverter;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroXmlDataConverterBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean useAvroEncoderSyntax;
+
+    @Param({ "false", "true" })
+    public boolean usePrettyPrinter;
+
+    private GenericRecord record;
+
+    @Setup
+    public void setup() {
+        record = BenchmarkData.smallRecord();
+    }
+
+    @Benchmark
+    public String convert() throws JsonProcessingException {
+        return AvroXmlDataConverter.convert(record, useAvroEncoderSyntax, usePrettyPrinter);
+    }
+
+}
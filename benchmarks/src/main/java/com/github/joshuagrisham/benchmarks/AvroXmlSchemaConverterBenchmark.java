@@ -0,0 +1,52 @@
+package com.github.joshuagrisham.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.ws.commons.schema.XmlSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.joshuagrisham.avro.AvroXmlSchemaConverter;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroXmlSchemaConverterBenchmark {
+
+    @Param({ "small", "wide", "deep" })
+    public String shape;
+
+    @Param({ "false", "true" })
+    public boolean useAvroEncoderSyntax;
+
+    private Schema avroSchema;
+
+    @Setup
+    public void setup() {
+        avroSchema = switch (shape) {
+            case "small" -> BenchmarkData.smallSchema();
+            case "wide" -> BenchmarkData.wideSchema(500);
+            case "deep" -> BenchmarkData.deepSchema(20);
+            default -> throw new IllegalArgumentException("Unknown schema shape: " + shape);
+        };
+    }
+
+    @Benchmark
+    public XmlSchema convert() {
+        return AvroXmlSchemaConverter.convert(avroSchema, useAvroEncoderSyntax);
+    }
+
+}
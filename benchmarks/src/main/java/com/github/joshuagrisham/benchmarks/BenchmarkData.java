@@ -0,0 +1,207 @@
+package com.github.joshuagrisham.benchmarks;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.SchemaBuilder.FieldAssembler;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import com.github.joshuagrisham.kafka.connect.JdbcSourceConnectorTransformations;
+import com.github.joshuagrisham.kafka.connect.JdbcSourceQuerier;
+import com.github.joshuagrisham.kafka.connect.TransformationDefinition;
+
+/**
+ * Shared fixtures (schemas, records, an embedded database and querier configurations) for the benchmarks.
+ */
+public class BenchmarkData {
+
+    // Kept alive until the JVM exits so that every querier (and connection) in the same fork sees the same data
+    public static final String JDBC_URL = "jdbc:h2:mem:benchmarks;DB_CLOSE_DELAY=-1";
+    public static final String USERNAME = "sa";
+    public static final String PASSWORD = "";
+
+    public static final String ORDERS_QUERY = "SELECT id, customer, amount, status, note, created FROM orders";
+
+    private BenchmarkData() {}
+
+    /* Avro schemas and records */
+
+    /**
+     * A small record with a mix of primitive, nested record, union, array and map fields.
+     */
+    public static Schema smallSchema() {
+        Schema address = SchemaBuilder.record("Address").namespace("com.example")
+            .fields()
+            .requiredString("street")
+            .requiredString("city")
+            .optionalString("postcode")
+            .endRecord();
+        return SchemaBuilder.record("Order").namespace("com.example")
+            .fields()
+            .requiredLong("id")
+            .requiredString("customer")
+            .requiredDouble("amount")
+            .requiredBoolean("paid")
+            .optionalString("note")
+            .name("created").type().longType().noDefault()
+            .name("payload").type().bytesType().noDefault()
+            .name("status").type().enumeration("Status").symbols("NEW", "PAID", "SHIPPED").noDefault()
+            .name("address").type(address).noDefault()
+            .name("lines").type().array().items().stringType().noDefault()
+            .name("attributes").type().map().values().stringType().noDefault()
+            .endRecord();
+    }
+
+    public static GenericRecord smallRecord() {
+        Schema schema = smallSchema();
+        GenericRecord address = new GenericData.Record(schema.getField("address").schema());
+        address.put("street", "Solnavägen 1");
+        address.put("city", "Solna");
+        address.put("postcode", "171 77");
+
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("channel", "web");
+        attributes.put("campaign", "spring & summer <2024>");
+
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("id", 1234567890123L);
+        record.put("customer", "Customer \"One\"");
+        record.put("amount", 1234.56);
+        record.put("paid", true);
+        record.put("note", null);
+        record.put("created", 1717171717171L);
+        record.put("payload", ByteBuffer.wrap(new byte[] { 65, 66, 67, 127, -1 })); // no control characters since XML does not allow them
+        record.put("status", new GenericData.EnumSymbol(schema.getField("status").schema(), "PAID"));
+        record.put("address", address);
+        record.put("lines", List.of("first line", "second line", "third line"));
+        record.put("attributes", attributes);
+        return record;
+    }
+
+    /**
+     * A flat record with the given number of fields, cycling through the primitive types (plus optional fields).
+     */
+    public static Schema wideSchema(int fieldCount) {
+        FieldAssembler<Schema> fields = SchemaBuilder.record("Wide").namespace("com.example").fields();
+        for (int i = 0; i < fieldCount; i++) {
+            String name = "field" + i;
+            switch (i % 6) {
+                case 0 -> fields = fields.requiredString(name);
+                case 1 -> fields = fields.requiredLong(name);
+                case 2 -> fields = fields.requiredDouble(name);
+                case 3 -> fields = fields.requiredBoolean(name);
+                case 4 -> fields = fields.optionalString(name);
+                default -> fields = fields.optionalInt(name);
+            }
+        }
+        return fields.endRecord();
+    }
+
+    /**
+     * A chain of distinct records nested the given number of levels deep, where each level also has an array of the
+     * next level and an optional reference to it.
+     */
+    public static Schema deepSchema(int depth) {
+        Schema level = SchemaBuilder.record("Level" + depth).namespace("com.example")
+            .fields()
+            .requiredString("value")
+            .endRecord();
+        for (int i = depth - 1; i >= 0; i--) {
+            level = SchemaBuilder.record("Level" + i).namespace("com.example")
+                .fields()
+                .requiredString("value")
+                .name("child").type(level).noDefault()
+                .name("children").type().array().items(level).noDefault()
+                .name("optionalChild").type().optional().type(level)
+                .endRecord();
+        }
+        return level;
+    }
+
+    /* Embedded database and querier */
+
+    /**
+     * (Re-)creates and populates the orders table in the embedded database.
+     * @param rows number of rows to insert
+     */
+    public static void createOrdersTable(int rows) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(JDBC_URL, USERNAME, PASSWORD)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS orders");
+                statement.execute("CREATE TABLE orders ("
+                    + "id BIGINT PRIMARY KEY, "
+                    + "customer VARCHAR(100) NOT NULL, "
+                    + "amount DECIMAL(12, 2) NOT NULL, "
+                    + "status VARCHAR(20) NOT NULL, "
+                    + "note VARCHAR(255), "
+                    + "created TIMESTAMP NOT NULL)");
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO orders (id, customer, amount, status, note, created) VALUES (?, ?, ?, ?, ?, ?)"))
+            {
+                long start = Timestamp.valueOf("2024-01-01 00:00:00").getTime();
+                for (int i = 1; i <= rows; i++) {
+                    insert.setLong(1, i);
+                    insert.setString(2, "Customer " + (i % 97));
+                    insert.setBigDecimal(3, BigDecimal.valueOf(i * 1234L, 2));
+                    insert.setString(4, i % 3 == 0 ? "SHIPPED" : i % 3 == 1 ? "NEW" : "PAID");
+                    insert.setString(5, i % 5 == 0 ? null : "Note for order " + i);
+                    insert.setTimestamp(6, new Timestamp(start + i * 60_000L));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    public static JdbcSourceQuerier ordersQuerier(List<TransformationDefinition> transformations) {
+        return new JdbcSourceQuerier(JdbcSourceQuerier.Dialect.GENERIC, JDBC_URL, USERNAME, PASSWORD, ORDERS_QUERY,
+            JdbcSourceQuerier.MAX_ROWS_LIMIT, transformations);
+    }
+
+    /**
+     * A chain of Connect's built-in SMTs (as offered by {@link JdbcSourceConnectorTransformations}) which touches every
+     * field of the orders query.
+     */
+    public static List<TransformationDefinition> builtInTransformations() {
+        List<TransformationDefinition> transformations = new ArrayList<>();
+        transformations.add(definition("org.apache.kafka.connect.transforms.Cast$Value",
+            Map.of("spec", "id:string")));
+        transformations.add(definition("org.apache.kafka.connect.transforms.ReplaceField$Value",
+            Map.of("renames", "customer:customer_name", "exclude", "note")));
+        transformations.add(definition("org.apache.kafka.connect.transforms.MaskField$Value",
+            Map.of("fields", "status")));
+        transformations.add(definition("org.apache.kafka.connect.transforms.TimestampConverter$Value",
+            Map.of("field", "created", "target.type", "string", "format", "yyyy-MM-dd'T'HH:mm:ss")));
+        transformations.add(definition("org.apache.kafka.connect.transforms.InsertField$Value",
+            Map.of("static.field", "source", "static.value", "benchmark")));
+        transformations.add(definition("org.apache.kafka.connect.transforms.HoistField$Value",
+            Map.of("field", "order")));
+        transformations.add(definition("org.apache.kafka.connect.transforms.Flatten$Value",
+            Map.of("delimiter", "_")));
+        transformations.add(definition("org.apache.kafka.connect.transforms.SetSchemaMetadata$Value",
+            Map.of("schema.name", "com.example.Order")));
+        return transformations;
+    }
+
+    private static TransformationDefinition definition(String className, Map<String, ?> config) {
+        // Make sure the benchmarks only use transformations which the app itself offers
+        if (new JdbcSourceConnectorTransformations().getConfigKeys(className) == null)
+            throw new IllegalArgumentException("Transformation is not available in the app: " + className);
+        return new TransformationDefinition(className, config);
+    }
+
+}
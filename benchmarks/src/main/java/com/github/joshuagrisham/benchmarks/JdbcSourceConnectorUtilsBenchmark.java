@@ -0,0 +1,88 @@
+package com.github.joshuagrisham.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.generic.GenericData;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.github.joshuagrisham.avro.AvroXmlDataConverter;
+import com.github.joshuagrisham.kafka.connect.JdbcSourceConnectorUtils;
+import com.github.joshuagrisham.kafka.connect.JdbcSourceQuerier;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JdbcSourceConnectorUtilsBenchmark {
+
+    private final JdbcSourceConnectorUtils utils = new JdbcSourceConnectorUtils(new SimpleMeterRegistry());
+    private JdbcSourceQuerier querier;
+    private List<SourceRecord> transformedResults;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkData.createOrdersTable(JdbcSourceQuerier.MAX_ROWS_LIMIT);
+        querier = BenchmarkData.ordersQuerier(BenchmarkData.builtInTransformations());
+        transformedResults = querier.getTransformedResults();
+    }
+
+    @TearDown
+    public void tearDown() {
+        querier.close();
+    }
+
+    /**
+     * Converts every transformed record from Connect to Avro, as done for each record in the preview.
+     */
+    @Benchmark
+    public List<GenericData.Record> getAvroRecord() {
+        List<GenericData.Record> records = new ArrayList<>(transformedResults.size());
+        for (SourceRecord record : transformedResults)
+            records.add(utils.getAvroRecord(record.valueSchema(), record.value()));
+        return records;
+    }
+
+    /**
+     * Converts every transformed record straight from Connect to XML, as shown in the preview.
+     */
+    @Benchmark
+    public List<String> getTransformedResultsAsXml() throws Exception {
+        return utils.getTransformedResultsAsXml(querier);
+    }
+
+    /**
+     * Converts every transformed record from Connect to Avro and then to XML (the same XML as
+     * {@link #getTransformedResultsAsXml()}), to compare with converting them directly. Run with <code>-prof gc</code>
+     * to also compare how much each of them allocates.
+     */
+    @Benchmark
+    public List<String> getTransformedResultsAsXmlViaAvro() throws Exception {
+        List<String> results = new ArrayList<>(transformedResults.size());
+        for (SourceRecord record : transformedResults)
+            results.add(AvroXmlDataConverter.convert(utils.getAvroRecord(record.valueSchema(), record.value()), false, true));
+        return results;
+    }
+
+    @Benchmark
+    public String getTransformedResultsXmlSchema() throws Exception {
+        return utils.getTransformedResultsXmlSchema(querier);
+    }
+
+}
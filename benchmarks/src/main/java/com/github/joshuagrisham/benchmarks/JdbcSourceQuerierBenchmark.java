@@ -0,0 +1,111 @@
+package com.github.joshuagrisham.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.joshuagrisham.kafka.connect.JdbcSourceQuerier;
+import com.github.joshuagrisham.kafka.connect.TransformationChain;
+import com.github.joshuagrisham.kafka.connect.TransformationInstanceCache;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JdbcSourceQuerierBenchmark {
+
+    private JdbcSourceQuerier querier;
+    private List<SourceRecord> queryResults;
+    private TransformationChain transformationChain;
+    private TransformationInstanceCache instanceCache;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkData.createOrdersTable(JdbcSourceQuerier.MAX_ROWS_LIMIT);
+        querier = BenchmarkData.ordersQuerier(BenchmarkData.builtInTransformations());
+        queryResults = querier.fetchQueryResults();
+        transformationChain = querier.getTransformationChain();
+        instanceCache = new TransformationInstanceCache();
+    }
+
+    @TearDown
+    public void tearDown() {
+        querier.close();
+        instanceCache.invalidate();
+    }
+
+    /**
+     * Runs the query (a new connection, statement and result set each time) and extracts all rows as records.
+     */
+    @Benchmark
+    public List<SourceRecord> fetchQueryResults() throws Exception {
+        return querier.fetchQueryResults();
+    }
+
+    /**
+     * Applies the already built and configured chain of built-in SMTs to the already fetched rows.
+     */
+    @Benchmark
+    public List<SourceRecord> applyTransformationChain() {
+        return transformationChain.apply(queryResults);
+    }
+
+    /**
+     * Same as the preview does for a new querier: build and configure every SMT and then apply them to the already
+     * fetched rows (setting the transformations discards the memoised chain and transformed results).
+     */
+    @Benchmark
+    public List<SourceRecord> getTransformedResults() throws Exception {
+        querier.setTransformations(querier.getTransformations());
+        return querier.getTransformedResults();
+    }
+
+    /**
+     * Same as {@link #getTransformedResults()} but the SMTs are borrowed from a {@link TransformationInstanceCache}
+     * instead of being built and configured every time (setting the cache releases the previous chain's instances).
+     */
+    @Benchmark
+    public List<SourceRecord> getTransformedResultsCached() throws Exception {
+        querier.setTransformationInstanceCache(instanceCache);
+        return querier.getTransformedResults();
+    }
+
+    /**
+     * Same as {@link #getTransformedResultsCached()} but the rows are split between one worker per available processor,
+     * each with its own chain (borrowed from the cache), for comparison with the serial path.
+     */
+    @Benchmark
+    public List<SourceRecord> getTransformedResultsParallel() throws Exception {
+        querier.setTransformationInstanceCache(instanceCache);
+        querier.setTransformationParallelism(Runtime.getRuntime().availableProcessors());
+        return querier.getTransformedResults();
+    }
+
+    /**
+     * Derives the transformed schema from the query's metadata only (without fetching any rows), for comparison with
+     * {@link #fetchQueryResults()} plus {@link #getTransformedResults()}.
+     */
+    @Benchmark
+    public Schema probeTransformedSchema() throws Exception {
+        querier.setQuery(querier.getQuery()); // discards the already probed schema
+        querier.setTransformations(querier.getTransformations());
+        querier.setSchemaOnly(true);
+        return querier.getTransformedSchema();
+    }
+
+}
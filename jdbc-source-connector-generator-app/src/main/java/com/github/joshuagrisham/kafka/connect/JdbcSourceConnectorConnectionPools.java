@@ -0,0 +1,68 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.joshuagrisham.kafka.connect.JdbcSourceConnectorDataSources.DataSource;
+import com.github.joshuagrisham.kafka.connect.JdbcSourceConnectorDataSources.DataSources;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Holds one bounded connection pool per pre-defined datasource from {@link DataSources}, which are shared across all
+ * requests. Pools are created on first use and closed when the application shuts down.
+ */
+@ApplicationScoped
+public class JdbcSourceConnectorConnectionPools {
+
+    @Inject
+    DataSources DATASOURCES;
+
+    private final Map<String, HikariDataSource> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the connection pool for the given pre-defined datasource name, creating it if it does not exist yet.
+     * @param dataSourceName key name of the datasource in {@link DataSources}
+     * @return the shared pool, or null if there is no pre-defined datasource with the given name
+     */
+    public javax.sql.DataSource get(String dataSourceName) {
+        if (JdbcSourceConnectorUtils.isBlank(dataSourceName))
+            return null;
+        DataSource ds = DATASOURCES.getAll().get(dataSourceName);
+        if (ds == null)
+            return null;
+        return pools.computeIfAbsent(dataSourceName, name -> createPool(name, ds));
+    }
+
+    private static HikariDataSource createPool(String name, DataSource ds) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("jdbc-source-" + name);
+        config.setJdbcUrl(ds.jdbcUrl());
+        config.setUsername(ds.username());
+        config.setPassword(ds.password());
+        // Same as the connector's own source task: read using transactions which are committed after each query
+        config.setAutoCommit(false);
+        config.setMaximumPoolSize(ds.pool().maxSize());
+        config.setMinimumIdle(ds.pool().minIdle()); // idle connections above this will be evicted after idleTimeout
+        config.setIdleTimeout(ds.pool().idleTimeout().toMillis());
+        config.setMaxLifetime(ds.pool().maxLifetime().toMillis());
+        config.setConnectionTimeout(ds.pool().acquisitionTimeout().toMillis());
+        config.setValidationTimeout(ds.pool().validationTimeout().toMillis());
+        // Otherwise JDBC4 Connection.isValid() is used for validation
+        ds.pool().validationQuery().ifPresent(config::setConnectionTestQuery);
+        // Do not fail or block on creation if the database happens to be unavailable; just fail the first query instead
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    @PreDestroy
+    void closeAll() {
+        pools.values().forEach(HikariDataSource::close);
+        pools.clear();
+    }
+
+}
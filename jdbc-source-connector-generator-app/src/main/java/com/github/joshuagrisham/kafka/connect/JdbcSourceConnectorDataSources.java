@@ -1,8 +1,11 @@
 package com.github.joshuagrisham.kafka.connect;
 
+import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
 
 import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
 import io.smallrye.config.WithParentName;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -24,6 +27,28 @@ public class JdbcSourceConnectorDataSources {
         String jdbcUrl();
         String username();
         String password();
+        Pool pool();
+        @WithDefault(DEFAULT_QUERY_TIMEOUT)
+        Duration queryTimeout();
+    }
+
+    // Preview queries should be quick, so cancel any which are not finished after this long (unless configured otherwise)
+    public static final String DEFAULT_QUERY_TIMEOUT = "PT1M";
+
+    public interface Pool {
+        @WithDefault("5")
+        int maxSize();
+        @WithDefault("0")
+        int minIdle();
+        @WithDefault("PT10M")
+        Duration idleTimeout();
+        @WithDefault("PT30M")
+        Duration maxLifetime();
+        @WithDefault("PT30S")
+        Duration acquisitionTimeout();
+        @WithDefault("PT5S")
+        Duration validationTimeout();
+        Optional<String> validationQuery();
     }
 
     @Inject
@@ -72,6 +97,22 @@ public class JdbcSourceConnectorDataSources {
             return this.password;
         }
 
+        /**
+         * Custom datasources are never pooled, so this will always return null.
+         */
+        @Override
+        public Pool pool() {
+            return null;
+        }
+
+        /**
+         * Custom datasources always use the default query timeout.
+         */
+        @Override
+        public Duration queryTimeout() {
+            return Duration.parse(DEFAULT_QUERY_TIMEOUT);
+        }
+
         private DataSourceImpl(String name, JdbcSourceQuerier.Dialect dialect, String jdbcUrl, String username, String password) {
             this.name = name;
             this.dialect = dialect;
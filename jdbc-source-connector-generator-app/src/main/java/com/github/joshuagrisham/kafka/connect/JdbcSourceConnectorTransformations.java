@@ -4,7 +4,15 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.inject.Named;
 
 @ApplicationScoped
@@ -17,6 +25,42 @@ public class JdbcSourceConnectorTransformations {
     //@All
     //List<Transformation<?>> transformations;
 
+    public static final String METRIC_INSTANCE_CACHE = "querier.transformation.instance.cache";
+
+    @ConfigProperty(name = "querier.transformations.cache.max-idle-per-config", defaultValue = "4")
+    int maxIdlePerConfig;
+
+    @ConfigProperty(name = "querier.transformations.parallelism", defaultValue = "1")
+    int parallelism;
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Inject
+    MeterRegistry REGISTRY;
+
+    // Shared by all queriers so that e.g. the Kryptonite ciphers (and their Tink keysets) are only configured once
+    private TransformationInstanceCache instanceCache;
+    public TransformationInstanceCache getInstanceCache() {
+        return instanceCache;
+    }
+
+    @PostConstruct
+    void init() {
+        instanceCache = new TransformationInstanceCache(maxIdlePerConfig);
+        FunctionCounter.builder(METRIC_INSTANCE_CACHE + ".hits", instanceCache, TransformationInstanceCache::getHitCount)
+            .register(REGISTRY);
+        FunctionCounter.builder(METRIC_INSTANCE_CACHE + ".misses", instanceCache, TransformationInstanceCache::getMissCount)
+            .register(REGISTRY);
+        Gauge.builder(METRIC_INSTANCE_CACHE + ".size", instanceCache, TransformationInstanceCache::size)
+            .register(REGISTRY);
+    }
+
+    @PreDestroy
+    void closeAll() {
+        instanceCache.invalidate();
+    }
+
     private Map<String, Set<String>> all;
     public Map<String, Set<String>> getAll() {
         // build all on the first get
@@ -1,15 +1,12 @@
 package com.github.joshuagrisham.kafka.connect;
 
-import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-
-import javax.xml.transform.OutputKeys;
 
 import org.apache.avro.generic.GenericData;
+import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.source.SourceRecord;
 
@@ -18,11 +15,17 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
-import com.github.joshuagrisham.avro.AvroXmlDataConverter;
-import com.github.joshuagrisham.avro.AvroXmlSchemaConverter;
+import com.github.joshuagrisham.avro.ConnectXmlDataConverter;
+import com.github.joshuagrisham.avro.AvroXmlSchemaCache;
 
 import io.confluent.connect.avro.AvroData;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.inject.Named;
 
 @ApplicationScoped
@@ -32,7 +35,60 @@ public class JdbcSourceConnectorUtils {
     private static final ObjectMapper MAPPER = JsonMapper.builder()
         .configure(MapperFeature.PROPAGATE_TRANSIENT_MARKER, true)
         .build();
-    private static final AvroData AVRODATA = new AvroData(1);
+    // AvroData caches Connect to Avro schema conversions; keep more than one so that switching between a few queries
+    // does not keep converting the same schemas over and over
+    private static final AvroData AVRODATA = new AvroData(100);
+    private static final AvroXmlSchemaCache XML_SCHEMA_CACHE = new AvroXmlSchemaCache();
+
+    // What the password is replaced with in the connector properties JSON
+    public static final String MASKED_PASSWORD = "********";
+
+    public static final String METRIC_AVRO_CONVERT = "querier.avro.convert";
+    public static final String METRIC_XML_CONVERT = "querier.xml.convert";
+    public static final String METRIC_XML_SCHEMA_CONVERT = "querier.xml.schema.convert";
+    public static final String METRIC_XML_SCHEMA_CACHE = "querier.xml.schema.cache";
+
+    @Inject
+    MeterRegistry REGISTRY;
+
+    private Timer avroConvertTimer;
+    private Timer xmlConvertTimer;
+    private Timer xmlSchemaConvertTimer;
+
+    public JdbcSourceConnectorUtils() {
+    }
+
+    /**
+     * Creates the utils outside of CDI (e.g. in the benchmarks), with their metrics in the given registry.
+     * @param registry
+     */
+    public JdbcSourceConnectorUtils(MeterRegistry registry) {
+        REGISTRY = registry;
+        init();
+    }
+
+    @PostConstruct
+    void init() {
+        avroConvertTimer = Timer.builder(METRIC_AVRO_CONVERT)
+            .description("Connect to Avro record conversions")
+            .register(REGISTRY);
+        xmlConvertTimer = Timer.builder(METRIC_XML_CONVERT)
+            .description("Connect record to XML conversions")
+            .register(REGISTRY);
+        // converted schemas are cached, so this is mostly the time of the cache lookups (see the cache's own metrics)
+        xmlSchemaConvertTimer = Timer.builder(METRIC_XML_SCHEMA_CONVERT)
+            .description("Connect schema to XML Schema conversions")
+            .register(REGISTRY);
+
+        FunctionCounter.builder(METRIC_XML_SCHEMA_CACHE + ".hits", XML_SCHEMA_CACHE, AvroXmlSchemaCache::getHitCount)
+            .register(REGISTRY);
+        FunctionCounter.builder(METRIC_XML_SCHEMA_CACHE + ".misses", XML_SCHEMA_CACHE, AvroXmlSchemaCache::getMissCount)
+            .register(REGISTRY);
+        FunctionCounter.builder(METRIC_XML_SCHEMA_CACHE + ".evictions", XML_SCHEMA_CACHE, AvroXmlSchemaCache::getEvictionCount)
+            .register(REGISTRY);
+        Gauge.builder(METRIC_XML_SCHEMA_CACHE + ".size", XML_SCHEMA_CACHE, AvroXmlSchemaCache::size)
+            .register(REGISTRY);
+    }
 
     public String prettyPrintJson(String uglyJson) throws JsonProcessingException {
         Object jsonObject = MAPPER.readValue(uglyJson, Object.class);
@@ -40,7 +96,7 @@ public class JdbcSourceConnectorUtils {
     }
 
     public GenericData.Record getAvroRecord(org.apache.kafka.connect.data.Schema schema, Object value) {
-        return (GenericData.Record) AVRODATA.fromConnectData(schema, value);
+        return (GenericData.Record) avroConvertTimer.record(() -> AVRODATA.fromConnectData(schema, value));
     }
 
     public String getAvroSchema(org.apache.kafka.connect.data.Schema schema, Object value) throws JsonProcessingException {
@@ -55,11 +111,12 @@ public class JdbcSourceConnectorUtils {
         IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException,
         ClassNotFoundException, SQLException, JsonProcessingException
     {
-        SourceRecord record = querier.peekTransformedResults();
-        if (record == null)
+        // falls back to the schema derived from the query's metadata if there are no rows
+        org.apache.kafka.connect.data.Schema schema = querier.getTransformedSchema();
+        if (schema == null)
             return null;
 
-        return prettyPrintJson(getAvroRecord(record.valueSchema(), record.value()).getSchema().toString());
+        return prettyPrintJson(AVRODATA.fromConnectSchema(schema).toString());
     }
 
     public List<String> getTransformedResultsAsXml(JdbcSourceQuerier querier) throws JsonMappingException, ConnectException,
@@ -68,24 +125,48 @@ public class JdbcSourceConnectorUtils {
     {
         List<String> results = new ArrayList<>();
         for (SourceRecord record : querier.getTransformedResults()) {
-            GenericData.Record avroRecord = getAvroRecord(record.valueSchema(), record.value());
-            results.add(AvroXmlDataConverter.convert(avroRecord, false, true));
+            results.add(getXml(record.valueSchema(), record.value()));
         }
         return results;
     }
 
+    /**
+     * Converts the value straight to XML, without converting it to an Avro record first; the XML is the same as
+     * converting the Avro record from {@link #getAvroRecord} would give.
+     */
+    public String getXml(org.apache.kafka.connect.data.Schema schema, Object value) throws JsonProcessingException {
+        Timer.Sample sample = Timer.start(REGISTRY);
+        try {
+            return ConnectXmlDataConverter.convert(schema, (Struct) value, true);
+        } finally {
+            sample.stop(xmlConvertTimer);
+        }
+    }
+
     public String getTransformedResultsXmlSchema(JdbcSourceQuerier querier) throws ConnectException, InstantiationException,
         IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException,
         ClassNotFoundException, SQLException
     {
-        SourceRecord record = querier.peekTransformedResults();
-        if (record == null)
+        org.apache.kafka.connect.data.Schema schema = querier.getTransformedSchema();
+        if (schema == null)
             return null;
 
-        GenericData.Record avroRecord = getAvroRecord(record.valueSchema(), record.value());
-        StringWriter stringWriter = new StringWriter();
-        AvroXmlSchemaConverter.convert(avroRecord.getSchema()).write(stringWriter, Map.of(OutputKeys.INDENT, "yes"));
-        return stringWriter.toString();
+        // Converted (and cached) directly from the Connect schema, which gives the same XML Schema as its Avro schema
+        return xmlSchemaConvertTimer.record(() -> XML_SCHEMA_CACHE.getXmlSchemaString(schema));
+    }
+
+    /**
+     * @return the fingerprint of the Avro schema which the given Connect schema would be converted to (the same
+     * fingerprint as the {@link AvroXmlSchemaCache} uses), or null if there is no schema
+     */
+    public String getAvroSchemaFingerprint(org.apache.kafka.connect.data.Schema schema) {
+        if (schema == null)
+            return null;
+        return AvroXmlSchemaCache.fingerprint(AVRODATA.fromConnectSchema(schema));
+    }
+
+    public AvroXmlSchemaCache getXmlSchemaCache() {
+        return XML_SCHEMA_CACHE;
     }
 
     public static boolean isBlank(String string) {
@@ -100,7 +181,7 @@ public class JdbcSourceConnectorUtils {
         // mask the password
         querierString = querierString
             .replaceAll("\"password\"\s{0,}:\s{0,}\"" + querier.getPassword() + "\"",
-                "\"password\": \"********\"");
+                "\"password\": \"" + MASKED_PASSWORD + "\"");
         return querierString;
     }
 
@@ -0,0 +1,408 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.github.joshuagrisham.kafka.connect.JdbcSourceConnectorDataSources.DataSource;
+import com.github.joshuagrisham.kafka.connect.JdbcSourceConnectorDataSources.DataSources;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import static com.github.joshuagrisham.kafka.connect.JdbcSourceConnectorUtils.isBlank;
+
+/**
+ * Validates a whole batch of querier definitions (in the same JSON format as
+ * {@link JdbcSourceConnectorUtils#getConnectorPropertiesJson(JdbcSourceQuerier)}) at once, e.g. to check that all
+ * generated connectors still work before a release: each query is run, its transformations are applied, and the
+ * timings, row counts and schema fingerprints (or the error) of each definition are returned in a report.
+ * <p>
+ * Definitions are run in parallel, but with at most {@code querier.batch.max-concurrent-per-datasource} queries
+ * running against the same datasource at any time (across all batches), so that a large batch does not exhaust a
+ * datasource's connection pool or overload its database.
+ */
+@ApplicationScoped
+public class JdbcSourceQuerierBatch {
+
+    @ConfigProperty(name = "querier.batch.max-concurrent", defaultValue = "8")
+    int maxConcurrent;
+
+    @ConfigProperty(name = "querier.batch.max-concurrent-per-datasource", defaultValue = "2")
+    int maxConcurrentPerDataSource;
+
+    @Inject
+    DataSources DATASOURCES;
+
+    @Inject
+    JdbcSourceConnectorConnectionPools POOLS;
+
+    @Inject
+    JdbcSourceConnectorUtils UTILS;
+
+    @Inject
+    JdbcSourceConnectorTransformations TRANSFORMATIONS;
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+        .configure(MapperFeature.PROPAGATE_TRANSIENT_MARKER, true)
+        .build();
+
+    // Extra (optional) fields which can be given in each definition in addition to the querier's own fields
+    public static final String NAME_FIELD = "name";
+    public static final String DATASOURCE_FIELD = "datasource";
+    public static final String EXPECTED_SCHEMA_FINGERPRINT_FIELD = "expectedSchemaFingerprint";
+
+    public enum Status {
+        SUCCEEDED,
+        FAILED
+    }
+
+    public static class Result {
+        private final int index;
+        public int getIndex() {
+            return index;
+        }
+
+        private final String name;
+        public String getName() {
+            return name;
+        }
+
+        private String datasource;
+        public String getDatasource() {
+            return datasource;
+        }
+
+        private Status status;
+        public Status getStatus() {
+            return status;
+        }
+
+        private long elapsedMillis;
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        private long queryMillis;
+        public long getQueryMillis() {
+            return queryMillis;
+        }
+
+        private long transformMillis;
+        public long getTransformMillis() {
+            return transformMillis;
+        }
+
+        private int rowCount;
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        private int transformedRowCount;
+        public int getTransformedRowCount() {
+            return transformedRowCount;
+        }
+
+        // Fingerprint of the query's own (untransformed) schema
+        private String querySchemaFingerprint;
+        public String getQuerySchemaFingerprint() {
+            return querySchemaFingerprint;
+        }
+
+        // Fingerprint of the transformed schema, i.e. the schema of the records which the connector would produce
+        private String schemaFingerprint;
+        public String getSchemaFingerprint() {
+            return schemaFingerprint;
+        }
+
+        private final String expectedSchemaFingerprint;
+        public String getExpectedSchemaFingerprint() {
+            return expectedSchemaFingerprint;
+        }
+
+        // null if no fingerprint was expected or if the schema is not known (e.g. all rows were dropped by a transformation)
+        private Boolean schemaChanged;
+        public Boolean getSchemaChanged() {
+            return schemaChanged;
+        }
+
+        private String error;
+        public String getError() {
+            return error;
+        }
+
+        private Result(int index, String name, String expectedSchemaFingerprint) {
+            this.index = index;
+            this.name = name;
+            this.expectedSchemaFingerprint = expectedSchemaFingerprint;
+        }
+
+        private void fail(Throwable e) {
+            status = Status.FAILED;
+            error = e.toString();
+            // the root cause (e.g. the SQLException) is usually the most helpful part
+            Throwable cause = e;
+            while (cause.getCause() != null && cause.getCause() != cause)
+                cause = cause.getCause();
+            if (cause != e)
+                error += " (caused by " + cause + ")";
+        }
+    }
+
+    public static class Report {
+        private final String started;
+        public String getStarted() {
+            return started;
+        }
+
+        private long elapsedMillis;
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public int getTotal() {
+            return results.size();
+        }
+        public long getSucceeded() {
+            return results.stream().filter(result -> result.getStatus() == Status.SUCCEEDED).count();
+        }
+        public long getFailed() {
+            return results.stream().filter(result -> result.getStatus() == Status.FAILED).count();
+        }
+        public long getSchemaChanged() {
+            return results.stream().filter(result -> Boolean.TRUE.equals(result.getSchemaChanged())).count();
+        }
+
+        private final List<Result> results;
+        public List<Result> getResults() {
+            return results;
+        }
+
+        private Report(String started, List<Result> results) {
+            this.started = started;
+            this.results = results;
+        }
+    }
+
+    // A definition which is ready to run (or which already failed while it was being prepared)
+    private static class Item {
+        private final Result result;
+        private JdbcSourceQuerier querier;
+        // key used for the concurrency limit: the pre-defined datasource name, or the JDBC URL of a custom datasource
+        private String dataSourceKey;
+
+        private Item(Result result) {
+            this.result = result;
+        }
+    }
+
+    private final Map<String, Semaphore> dataSourcePermits = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "querier-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs all of the given querier definitions and waits until they have all finished.
+     * @param definitions JSON array of querier definitions, each of which can also have a {@value #NAME_FIELD} (to
+     *                    identify it in the report), a {@value #DATASOURCE_FIELD} (name of the pre-defined datasource
+     *                    to run it against) and an {@value #EXPECTED_SCHEMA_FINGERPRINT_FIELD} (the schema fingerprint
+     *                    from a previous report, to check whether the schema has changed since then)
+     * @return the report with one result per definition, in the same order as the definitions
+     * @throws JsonProcessingException if the definitions are not a valid JSON array
+     * @throws InterruptedException
+     */
+    public Report validate(String definitions) throws JsonProcessingException, InterruptedException {
+        JsonNode definitionsNode = MAPPER.readTree(definitions);
+        if (definitionsNode == null || !definitionsNode.isArray())
+            throw new IllegalArgumentException("Querier definitions must be given as a JSON array");
+
+        Instant startedAt = Instant.now();
+        long started = System.nanoTime();
+        List<Result> results = new ArrayList<>();
+        Map<String, Queue<Item>> itemsByDataSource = new LinkedHashMap<>();
+        for (JsonNode definition : definitionsNode) {
+            Item item = prepare(results.size(), definition);
+            results.add(item.result);
+            if (item.querier != null)
+                itemsByDataSource.computeIfAbsent(item.dataSourceKey, key -> new ConcurrentLinkedQueue<>()).add(item);
+        }
+
+        // Start no more workers per datasource than are allowed to run at the same time; each worker then takes the
+        // next of its datasource's items until there are none left, so a batch never blocks itself waiting for a
+        // datasource. A worker can still wait for a permit while other batches are running against the same datasource.
+        List<Future<?>> workers = new ArrayList<>();
+        for (Map.Entry<String, Queue<Item>> entry : itemsByDataSource.entrySet()) {
+            Semaphore permits = dataSourcePermits.computeIfAbsent(entry.getKey(),
+                key -> new Semaphore(maxConcurrentPerDataSource));
+            int workerCount = Math.min(maxConcurrentPerDataSource, entry.getValue().size());
+            for (int i = 0; i < workerCount; i++)
+                workers.add(executor.submit(() -> {
+                    work(entry.getValue(), permits);
+                    return null;
+                }));
+        }
+
+        try {
+            for (Future<?> worker : workers)
+                worker.get();
+        } catch (ExecutionException e) {
+            // run() never throws, so this should not happen
+            throw new IllegalStateException("Batch validation failed", e.getCause());
+        } catch (InterruptedException e) {
+            workers.forEach(worker -> worker.cancel(true));
+            throw e;
+        }
+
+        Report report = new Report(startedAt.toString(), results);
+        report.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        return report;
+    }
+
+    private void work(Queue<Item> items, Semaphore permits) throws InterruptedException {
+        Item item;
+        while ((item = items.poll()) != null) {
+            // other batches may be running against the same datasource at the same time
+            permits.acquire();
+            try {
+                run(item);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Builds the querier for the given definition and resolves which datasource it should run against.
+     */
+    private Item prepare(int index, JsonNode definition) {
+        String name = definition.path(NAME_FIELD).asText(null);
+        String dataSourceName = definition.path(DATASOURCE_FIELD).asText(null);
+        Item item = new Item(new Result(index, name, definition.path(EXPECTED_SCHEMA_FINGERPRINT_FIELD).asText(null)));
+        try {
+            if (!definition.isObject())
+                throw new IllegalArgumentException("Querier definition must be a JSON object");
+            // the extra fields are not part of the querier itself
+            ObjectNode querierNode = ((ObjectNode) definition).deepCopy();
+            querierNode.remove(List.of(NAME_FIELD, DATASOURCE_FIELD, EXPECTED_SCHEMA_FINGERPRINT_FIELD));
+            JdbcSourceQuerier querier = MAPPER.treeToValue(querierNode, JdbcSourceQuerier.class);
+
+            if (isBlank(dataSourceName))
+                dataSourceName = findDataSourceName(querier);
+            DataSource ds;
+            if (dataSourceName != null) {
+                ds = DATASOURCES.getAll().get(dataSourceName);
+                if (ds == null)
+                    throw new IllegalArgumentException("Datasource " + dataSourceName + " does not exist");
+                // the definition's own connection details are (at most) the same as the pre-defined datasource's,
+                // except that its password has been masked
+                querier.setDialect(ds.dialect());
+                querier.setJdbcUrl(ds.jdbcUrl());
+                querier.setUsername(ds.username());
+                querier.setPassword(ds.password());
+                querier.setPooledDataSource(POOLS.get(dataSourceName));
+                item.dataSourceKey = dataSourceName;
+            } else {
+                if (isBlank(querier.getPassword()) || JdbcSourceConnectorUtils.MASKED_PASSWORD.equals(querier.getPassword()))
+                    throw new IllegalArgumentException("No pre-defined datasource matches jdbcUrl " + querier.getJdbcUrl()
+                        + " and username " + querier.getUsername() + ", and no password was given");
+                ds = JdbcSourceConnectorDataSources.create("custom", querier.getDialect(), querier.getJdbcUrl(),
+                    querier.getUsername(), querier.getPassword());
+                item.dataSourceKey = querier.getJdbcUrl();
+            }
+            item.result.datasource = dataSourceName != null ? dataSourceName : querier.getJdbcUrl();
+            querier.setDataSourceName(dataSourceName != null ? dataSourceName : ds.name());
+            querier.setTransformationInstanceCache(TRANSFORMATIONS.getInstanceCache());
+            querier.setTransformationParallelism(TRANSFORMATIONS.getParallelism());
+            if (querier.getQueryTimeoutSeconds() == 0)
+                querier.setQueryTimeoutSeconds((int) ds.queryTimeout().toSeconds());
+
+            item.querier = querier;
+        } catch (Exception e) {
+            item.result.fail(e);
+        }
+        return item;
+    }
+
+    /**
+     * @return the name of the pre-defined datasource with the same JDBC URL and username as the querier, or null if
+     * there is none
+     */
+    private String findDataSourceName(JdbcSourceQuerier querier) {
+        for (Map.Entry<String, DataSource> entry : DATASOURCES.getAll().entrySet()) {
+            // a datasource does not need to have a username (e.g. if it is part of the JDBC URL)
+            if (Objects.equals(entry.getValue().jdbcUrl(), querier.getJdbcUrl())
+                && Objects.equals(entry.getValue().username(), querier.getUsername()))
+                return entry.getKey();
+        }
+        return null;
+    }
+
+    private void run(Item item) {
+        Result result = item.result;
+        long started = System.nanoTime();
+        try (JdbcSourceQuerier querier = item.querier) {
+            result.rowCount = querier.fetchQueryResults().size();
+            result.queryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            result.querySchemaFingerprint = UTILS.getAvroSchemaFingerprint(querier.getQuerySchema());
+
+            long transformStarted = System.nanoTime();
+            result.transformedRowCount = querier.getTransformedResults().size();
+            result.transformMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - transformStarted);
+            // for queries without any rows the schemas are derived from the query's metadata instead
+            result.schemaFingerprint = UTILS.getAvroSchemaFingerprint(querier.getTransformedSchema());
+            if (result.schemaFingerprint != null && result.expectedSchemaFingerprint != null)
+                result.schemaChanged = !result.expectedSchemaFingerprint.equals(result.schemaFingerprint);
+            result.status = Status.SUCCEEDED;
+        } catch (Exception | LinkageError e) {
+            // e.g. a transformation class which could not be loaded
+            result.fail(e);
+        } finally {
+            result.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * @return the report as (pretty printed) JSON
+     */
+    public String toJson(Report report) throws JsonProcessingException {
+        return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+@Path("/querier/batch")
+public class JdbcSourceQuerierBatchResource {
+
+    @Inject
+    JdbcSourceQuerierBatch BATCH;
+
+    /**
+     * Runs all of the given querier definitions and returns the validation report once they have all finished.
+     * @param definitions JSON array of querier definitions (see {@link JdbcSourceQuerierBatch#validate(String)})
+     * @return the report as JSON
+     */
+    @POST
+    @Path("/validate")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public String postValidate(String definitions) throws InterruptedException, JsonProcessingException {
+        JdbcSourceQuerierBatch.Report report;
+        try {
+            report = BATCH.validate(definitions);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new BadRequestException("Invalid querier definitions: " + e.getMessage(), e);
+        }
+        return BATCH.toJson(report);
+    }
+
+}
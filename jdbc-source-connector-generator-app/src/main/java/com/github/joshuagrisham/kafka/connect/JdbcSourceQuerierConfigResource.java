@@ -10,6 +10,7 @@ import org.jboss.resteasy.reactive.RestForm;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
@@ -21,6 +22,9 @@ public class JdbcSourceQuerierConfigResource {
 
     private final ObjectMapper MAPPER = new ObjectMapper();
 
+    @Inject
+    JdbcSourceConnectorTransformations TRANSFORMATIONS;
+
     @CheckedTemplate
     public static class Templates {
         public static native TemplateInstance query();
@@ -91,4 +95,15 @@ public class JdbcSourceQuerierConfigResource {
         return Templates.transformationConfigEdit(uniqueFormName, className, null, null);
     }
 
+    /**
+     * Discards the cached (already configured) transformation instances so that they are configured again the next
+     * time they are used, e.g. after their keys have been rotated.
+     * @param className class name of the transformations to discard, or blank for all of them
+     */
+    @POST
+    @Path("/transformation/cache/invalidate")
+    public void postTransformationCacheInvalidate(@RestForm String className) {
+        TRANSFORMATIONS.getInstanceCache().invalidate(JdbcSourceConnectorUtils.isBlank(className) ? null : className);
+    }
+
 }
@@ -0,0 +1,236 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.qute.TemplateInstance;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Runs querier queries as background jobs on a bounded executor, so that a slow query does not hold a request thread
+ * and can be cancelled by the user while it is still running. The UI polls each job until its results are ready.
+ */
+@ApplicationScoped
+public class JdbcSourceQuerierJobs {
+
+    // Finished jobs whose results are never collected (e.g. the browser was closed) are discarded after this long
+    public static final Duration JOB_TIMEOUT = Duration.ofMinutes(10);
+
+    @ConfigProperty(name = "querier.jobs.max-concurrent", defaultValue = "4")
+    int maxConcurrent;
+
+    @ConfigProperty(name = "querier.jobs.max-queued", defaultValue = "20")
+    int maxQueued;
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED
+    }
+
+    public static class Job {
+        private final String id;
+        public String getId() {
+            return id;
+        }
+
+        private final JdbcSourceQuerier querier;
+        public JdbcSourceQuerier getQuerier() {
+            return querier;
+        }
+
+        // id of the element in the UI where the results (or any error) should be displayed
+        private final String resultsElementId;
+        public String getResultsElementId() {
+            return resultsElementId;
+        }
+
+        private final AtomicReference<Status> status = new AtomicReference<>(Status.QUEUED);
+        public Status getStatus() {
+            return status.get();
+        }
+        public boolean isActive() {
+            return getStatus() == Status.QUEUED || getStatus() == Status.RUNNING;
+        }
+        public boolean isQueued() {
+            return getStatus() == Status.QUEUED;
+        }
+        public boolean isCancelled() {
+            return getStatus() == Status.CANCELLED;
+        }
+
+        private volatile long started;
+        private volatile long finished;
+        public long getElapsedSeconds() {
+            if (started == 0)
+                return 0;
+            return ((finished == 0 ? System.currentTimeMillis() : finished) - started) / 1000;
+        }
+
+        private Future<TemplateInstance> future;
+
+        private Job(JdbcSourceQuerier querier, String resultsElementId) {
+            this.id = UUID.randomUUID().toString();
+            this.querier = querier;
+            this.resultsElementId = resultsElementId;
+        }
+
+        private TemplateInstance run(Callable<TemplateInstance> task) throws Exception {
+            // a job which was cancelled while it was still queued should never start
+            if (!status.compareAndSet(Status.QUEUED, Status.RUNNING))
+                return null;
+            started = System.currentTimeMillis();
+            try {
+                TemplateInstance result = task.call();
+                if (!status.compareAndSet(Status.RUNNING, Status.SUCCEEDED)) {
+                    // cancelled just as it finished, so the results will never be rendered
+                    querier.close();
+                    return null;
+                }
+                return result;
+            } catch (Exception | Error e) {
+                status.compareAndSet(Status.RUNNING, Status.FAILED);
+                // the results will never be rendered, so the querier will not be closed by the template
+                querier.close();
+                throw e;
+            } finally {
+                finished = System.currentTimeMillis();
+            }
+        }
+
+        private void cancel() {
+            if (status.compareAndSet(Status.QUEUED, Status.CANCELLED)) {
+                // never started, so nothing else will close it
+                future.cancel(false);
+                querier.close();
+                finished = System.currentTimeMillis();
+                return;
+            }
+            if (status.compareAndSet(Status.RUNNING, Status.CANCELLED)) {
+                // the running query will fail with an exception and the job will then close the querier (and connection) itself
+                querier.cancel();
+            }
+        }
+
+        private boolean isExpired() {
+            return finished != 0 && finished < System.currentTimeMillis() - JOB_TIMEOUT.toMillis();
+        }
+
+        private void discard() {
+            cancel();
+            // results which were never rendered still have an open querier
+            if (getStatus() == Status.SUCCEEDED)
+                querier.close();
+        }
+    }
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(maxQueued),
+            runnable -> {
+                Thread thread = new Thread(runnable, "querier-job-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Submits a new job which will run the given task (e.g. fetching the querier's results and building the template
+     * which shows them) in the background.
+     * @param querier the querier which the task uses; it will be cancelled if the job is cancelled and closed if the
+     *                job fails or is never collected, otherwise it should be closed once its results are rendered
+     * @param resultsElementId id of the element in the UI where the results should be displayed
+     * @param task
+     * @return the submitted job
+     */
+    public Job submit(JdbcSourceQuerier querier, String resultsElementId, Callable<TemplateInstance> task) {
+        evictExpired();
+        Job job = new Job(querier, resultsElementId);
+        jobs.put(job.getId(), job);
+        try {
+            job.future = executor.submit(() -> job.run(task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            querier.close();
+            throw new IllegalStateException("Too many queries are already running or waiting to run; try again later", e);
+        }
+        return job;
+    }
+
+    public Job get(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Cancels the job if it is still queued or running, including cancelling its query if it has already started.
+     * @param id
+     * @return the job, or null if there is no job with the given id
+     */
+    public Job cancel(String id) {
+        Job job = jobs.get(id);
+        if (job != null)
+            job.cancel();
+        return job;
+    }
+
+    /**
+     * Removes a finished job and returns its results.
+     * @param job a job which is no longer active
+     * @return the template with the job's results, or null if the job was cancelled
+     * @throws Exception the exception which the job failed with
+     */
+    public TemplateInstance collect(Job job) throws Exception {
+        if (job.isActive())
+            throw new IllegalStateException("Job has not finished yet");
+        jobs.remove(job.getId());
+        if (job.isCancelled())
+            return null;
+        try {
+            return job.future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    private void evictExpired() {
+        jobs.values().removeIf(job -> {
+            if (job.isExpired()) {
+                job.discard();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobs.values().forEach(Job::discard);
+        jobs.clear();
+        executor.shutdownNow();
+    }
+
+}
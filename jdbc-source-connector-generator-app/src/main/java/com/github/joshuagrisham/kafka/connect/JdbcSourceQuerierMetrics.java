@@ -0,0 +1,48 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.util.List;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+/**
+ * Configures the percentiles of the querier's timers (see {@link JdbcSourceQuerier#setMeterRegistry}, the
+ * {@link TransformationChain} and {@link JdbcSourceConnectorUtils}), which are all exposed together with the rest of
+ * the application's metrics in Prometheus format at <code>/q/metrics</code>.
+ */
+@Singleton
+public class JdbcSourceQuerierMetrics {
+
+    // All of the querier's metrics start with this
+    public static final String METRIC_PREFIX = "querier.";
+
+    @ConfigProperty(name = "querier.metrics.percentiles", defaultValue = "0.5,0.95,0.99")
+    List<Double> percentiles;
+
+    @ConfigProperty(name = "querier.metrics.percentiles-histogram", defaultValue = "false")
+    boolean percentilesHistogram;
+
+    @Produces
+    @Singleton
+    public MeterFilter querierPercentiles() {
+        double[] configuredPercentiles = percentiles.stream().mapToDouble(Double::doubleValue).toArray();
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().startsWith(METRIC_PREFIX))
+                    return config;
+                return DistributionStatisticConfig.builder()
+                    .percentiles(configuredPercentiles)
+                    .percentilesHistogram(percentilesHistogram)
+                    .build()
+                    .merge(config);
+            }
+        };
+    }
+
+}
@@ -2,22 +2,28 @@ package com.github.joshuagrisham.kafka.connect;
 
 import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.stream.Stream;
 
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
 
-import org.apache.commons.text.StringSubstitutor;
-import org.apache.commons.text.lookup.StringLookupFactory;
 import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
 
 import org.jboss.resteasy.reactive.RestForm;
 
@@ -26,13 +32,14 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.quarkus.qute.CheckedTemplate;
-import io.quarkus.qute.TemplateException;
 import io.quarkus.qute.TemplateInstance;
-import io.smallrye.config.ConfigMapping;
-import io.smallrye.config.WithParentName;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 
 import com.github.joshuagrisham.kafka.connect.JdbcSourceConnectorDataSources.DataSource;
 import com.github.joshuagrisham.kafka.connect.JdbcSourceConnectorDataSources.DataSources;
+import com.github.joshuagrisham.kafka.connect.JdbcSourceQuerierJobs.Job;
+import com.github.joshuagrisham.kafka.connect.JdbcSourceQuerierSessions.Session;
 
 import static com.github.joshuagrisham.kafka.connect.JdbcSourceConnectorUtils.isBlank;
 
@@ -41,14 +48,38 @@ public class JdbcSourceQuerierResource {
 
     private final ObjectMapper MAPPER = new ObjectMapper();
 
+    // Separates the HTML fragments of streamed results so that the browser knows when each one is complete
+    public static final String STREAM_DELIMITER = "\u001E";
+
     @Inject
     DataSources DATASOURCES;
 
+    @Inject
+    JdbcSourceConnectorConnectionPools POOLS;
+
+    @Inject
+    JdbcSourceQuerierSessions SESSIONS;
+
+    @Inject
+    JdbcSourceQuerierJobs JOBS;
+
+    @Inject
+    SqlExpressionQueryExpander EXPANDER;
+
+    @Inject
+    JdbcSourceConnectorTransformations TRANSFORMATIONS;
+
+    @Inject
+    JdbcSourceQuerierResultCache RESULTS;
+
     @CheckedTemplate
     public static class Templates {
         public static native TemplateInstance index();
         public static native TemplateInstance listQueryResults(JdbcSourceQuerier querier);
         public static native TemplateInstance listConnectorResults(JdbcSourceQuerier querier);
+        public static native TemplateInstance job(Job job);
+        public static native TemplateInstance connectorRow(SourceRecord record, int count);
+        public static native TemplateInstance streamStatus(int count, String error);
     }
 
     @GET
@@ -56,6 +87,8 @@ public class JdbcSourceQuerierResource {
         return Templates.index();
     }
     public String connectSchemaAsJsonString(Schema schema) throws JsonProcessingException {
+        if (schema == null) // e.g. when paging past the last row of the query results
+            return null;
         Map<String, String> schemaMap = new LinkedHashMap<>();
         for (Field field : schema.fields()) {
             schemaMap.put(field.name(), field.schema().type().toString());
@@ -72,31 +105,57 @@ public class JdbcSourceQuerierResource {
         return JdbcSourceConnectorDataSources.create("custom", dialect, jdbcUrl, username, password);
     }
 
-    @ConfigMapping(prefix = "sql.expressions")
-    public interface SqlExpressions {
-        @WithParentName
-        Map<String, Map<String, String>> map();
+    /**
+     * Sets the per-datasource settings (connection pool and query timeout) and the shared transformation instance cache
+     * on the querier.
+     */
+    private void configureQuerier(JdbcSourceQuerier querier, String dataSourceName, DataSource ds) {
+        querier.setPooledDataSource(POOLS.get(dataSourceName));
+        querier.setDataSourceName(isBlank(dataSourceName) ? ds.name() : dataSourceName);
+        querier.setQueryTimeoutSeconds((int) ds.queryTimeout().toSeconds());
+        querier.setTransformationInstanceCache(TRANSFORMATIONS.getInstanceCache());
+        querier.setTransformationParallelism(TRANSFORMATIONS.getParallelism());
     }
-    @Inject
-    private SqlExpressions sqlExpressions;
 
-    @ConfigMapping(prefix = "sql.parameters")
-    public interface SqlParameters {
-        @WithParentName
-        Map<String, Map<String, String>> map();
+    /**
+     * Sets the querier's starting offset to continue from the given session's last offset if it has one, otherwise
+     * from the explicitly given offset values (if any were given). Only incremental queries have a next page, so other
+     * queries do not get a session at all.
+     * @return the session which should be updated with the querier's next offset, or null if the query is not
+     * incremental
+     */
+    private Session continueSession(JdbcSourceQuerier querier, String sessionId, String offsetTimestamp,
+        String offsetIncrementing)
+    {
+        Session session = querier.isIncremental() ? SESSIONS.getOrCreate(sessionId) : null;
+        if (session != null && session.getNextOffset() != null)
+            querier.setStartingOffset(session.getNextOffset());
+        else
+            setStartingOffset(querier, offsetTimestamp, offsetIncrementing);
+        return session;
+    }
+
+    /**
+     * Sets the querier's starting offset from the explicitly given offset values, if any were given.
+     */
+    private void setStartingOffset(JdbcSourceQuerier querier, String offsetTimestamp, String offsetIncrementing) {
+        if (!isBlank(offsetTimestamp) || !isBlank(offsetIncrementing))
+            querier.setStartingOffset(
+                isBlank(offsetTimestamp) ? null : Timestamp.from(Instant.parse(offsetTimestamp.strip())),
+                isBlank(offsetIncrementing) ? null : Long.valueOf(offsetIncrementing.strip()));
+    }
+
+    /**
+     * Sets the cached results of an identical query on the querier unless the cache should be bypassed (i.e. when the
+     * results should be refreshed, or when the query is profiled since then it needs to actually run).
+     * @return when the cached results were fetched, or null if the query still needs to be run
+     */
+    private Instant restoreCachedResults(JdbcSourceQuerier querier, boolean bypass) {
+        return bypass ? null : RESULTS.restore(querier);
     }
-    @Inject
-    private SqlParameters sqlParameters;
 
     private String finalQueryText(String datasource, String query) {
-        SqlExpressionFunctionStringLookup sqlExpressionStringLookup =
-            new SqlExpressionFunctionStringLookup(datasource, sqlExpressions.map(), sqlParameters.map());
-        StringSubstitutor substitutor = new StringSubstitutor(
-            StringLookupFactory.INSTANCE.interpolatorStringLookup(
-                Map.of("sql", sqlExpressionStringLookup),
-                null,
-                true));
-        return substitutor.replace(query);
+        return EXPANDER.expand(datasource, query);
     }
 
     @POST
@@ -114,7 +173,14 @@ public class JdbcSourceQuerierResource {
         @RestForm JdbcSourceQuerier.Mode mode,
         @RestForm String timeZone,
         @RestForm List<String> timestampColumnNames,
-        @RestForm String incrementingColumnName
+        @RestForm String incrementingColumnName,
+
+        @RestForm String session,
+        @RestForm String offsetTimestamp,
+        @RestForm String offsetIncrementing,
+
+        @RestForm boolean profile,
+        @RestForm boolean refresh
     ) throws ConnectException, SQLException, JsonProcessingException {
 
         DataSource ds = resolveDataSource(datasource, dialect, jdbcUrl, username, password);
@@ -122,51 +188,46 @@ public class JdbcSourceQuerierResource {
             ds.dialect(), ds.jdbcUrl(), ds.username(), ds.password(),
             finalQueryText(datasource, query),
             mode, timestampColumnNames, TimeZone.getTimeZone(timeZone), incrementingColumnName, rowsLimit);
-
-        try {
+        configureQuerier(querier, datasource, ds);
+        querier.setProfiling(profile);
+        Session querierSession = continueSession(querier, session, offsetTimestamp, offsetIncrementing);
+
+        // Run the query in the background and return a job which the UI will poll until the results are ready
+        Job job = JOBS.submit(querier, "queryResults", () -> {
+            Instant cachedAt = restoreCachedResults(querier, refresh || profile);
+            String querySchema = connectSchemaAsJsonString(querier.getQuerySchema());
+            if (querierSession != null)
+                querierSession.setNextOffset(querier.getNextOffset());
+            if (cachedAt == null)
+                RESULTS.store(querier);
             return Templates.listQueryResults(querier)
-                .data("querySchema", connectSchemaAsJsonString(querier.getQuerySchema()));
-        } catch (TemplateException e) {
-            System.out.println("EXCEPTION HERE: " + e.getMessage()); //TODO for some reason the exception is never caught here? like it is in another thread?
-            return null;
-        }
-
+                .data("querySchema", querySchema)
+                .data("cachedAt", cachedAt)
+                .data("session", querierSession == null ? null : querierSession.getId())
+                .onRendered(querier::close);
+        });
+        return Templates.job(job);
     }
 
-    @POST
-    @Path("/results/connector")
-    public TemplateInstance getConnectorResults(
-        @RestForm String datasource,
-        @RestForm JdbcSourceQuerier.Dialect dialect,
-        @RestForm String jdbcUrl,
-        @RestForm String username,
-        @RestForm String password,
-
-        @RestForm String query,
-        @RestForm int rowsLimit,
-
-        @RestForm JdbcSourceQuerier.Mode mode,
-        @RestForm String timeZone,
-        @RestForm List<String> timestampColumnNames,
-        @RestForm String incrementingColumnName,
-
-        @RestForm String schemaMetadataName,
-        @RestForm String keyField,
-        @RestForm String personnummerField,
-
-        @RestForm String originatingSystemId,
-        @RestForm String originatingSystemIdentifiersField,
-        @RestForm String originatingSystemIdentifiersFieldOperation,
-        @RestForm String originatingSystemVersionIdField,
-        @RestForm String originatingSystemVersionIdFieldOperation,
-        @RestForm String originatingSystemTimeField,
-        @RestForm String originatingSystemTimeFieldOperation,
-
-        @RestForm List<String> transformationDefinition,
-
-        @RestForm String pollIntervalMs,
-        @RestForm String topicName
-    ) throws JsonMappingException, JsonProcessingException, ConnectException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException, ClassNotFoundException, SQLException {
+    /**
+     * Builds the standard transformations from their specific form inputs, followed by all of the extra user-chosen
+     * transformations.
+     */
+    private List<TransformationDefinition> buildTransformations(
+        String schemaMetadataName,
+        String keyField,
+        String personnummerField,
+
+        String originatingSystemId,
+        String originatingSystemIdentifiersField,
+        String originatingSystemIdentifiersFieldOperation,
+        String originatingSystemVersionIdField,
+        String originatingSystemVersionIdFieldOperation,
+        String originatingSystemTimeField,
+        String originatingSystemTimeFieldOperation,
+
+        List<String> transformationDefinition
+    ) throws JsonMappingException, JsonProcessingException {
 
         List<TransformationDefinition> transformations = new ArrayList<>();
 
@@ -247,6 +308,57 @@ public class JdbcSourceQuerierResource {
             transformations.add(new TransformationDefinition("org.apache.kafka.connect.transforms.SetSchemaMetadata$Value",
                 Map.of("schema.name", schemaMetadataName)));
 
+        return transformations;
+    }
+
+    @POST
+    @Path("/results/connector")
+    public TemplateInstance getConnectorResults(
+        @RestForm String datasource,
+        @RestForm JdbcSourceQuerier.Dialect dialect,
+        @RestForm String jdbcUrl,
+        @RestForm String username,
+        @RestForm String password,
+
+        @RestForm String query,
+        @RestForm int rowsLimit,
+
+        @RestForm JdbcSourceQuerier.Mode mode,
+        @RestForm String timeZone,
+        @RestForm List<String> timestampColumnNames,
+        @RestForm String incrementingColumnName,
+
+        @RestForm String session,
+        @RestForm String offsetTimestamp,
+        @RestForm String offsetIncrementing,
+
+        @RestForm String schemaMetadataName,
+        @RestForm String keyField,
+        @RestForm String personnummerField,
+
+        @RestForm String originatingSystemId,
+        @RestForm String originatingSystemIdentifiersField,
+        @RestForm String originatingSystemIdentifiersFieldOperation,
+        @RestForm String originatingSystemVersionIdField,
+        @RestForm String originatingSystemVersionIdFieldOperation,
+        @RestForm String originatingSystemTimeField,
+        @RestForm String originatingSystemTimeFieldOperation,
+
+        @RestForm List<String> transformationDefinition,
+
+        @RestForm String pollIntervalMs,
+        @RestForm String topicName,
+
+        @RestForm boolean schemaOnly,
+        @RestForm boolean profile,
+        @RestForm boolean refresh
+    ) throws JsonMappingException, JsonProcessingException, ConnectException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException, ClassNotFoundException, SQLException {
+
+        List<TransformationDefinition> transformations = buildTransformations(schemaMetadataName, keyField,
+            personnummerField, originatingSystemId, originatingSystemIdentifiersField,
+            originatingSystemIdentifiersFieldOperation, originatingSystemVersionIdField,
+            originatingSystemVersionIdFieldOperation, originatingSystemTimeField, originatingSystemTimeFieldOperation,
+            transformationDefinition);
 
         // Build the JdbcSourceQuerier including transformations and return it with the template
         DataSource ds = resolveDataSource(datasource, dialect, jdbcUrl, username, password);
@@ -254,8 +366,138 @@ public class JdbcSourceQuerierResource {
             ds.dialect(), ds.jdbcUrl(), ds.username(), ds.password(),
             finalQueryText(datasource, query),
             mode, timestampColumnNames, TimeZone.getTimeZone(timeZone), incrementingColumnName, rowsLimit, transformations);
+        configureQuerier(querier, datasource, ds);
+        querier.setSchemaOnly(schemaOnly);
+        querier.setProfiling(profile);
+        Session querierSession = continueSession(querier, session, offsetTimestamp, offsetIncrementing);
+
+        // Run the query and transformations in the background and return a job which the UI will poll until the results are ready
+        Job job = JOBS.submit(querier, "connectorResults", () -> {
+            Instant cachedAt = null;
+            if (schemaOnly) {
+                // only probe the schemas from the query's metadata without fetching any rows
+                querier.getTransformedSchema();
+            } else {
+                // e.g. when only the transformations have changed, just apply them to the same rows again
+                cachedAt = restoreCachedResults(querier, refresh || profile);
+                if (querierSession != null)
+                    querierSession.setNextOffset(querier.getNextOffset());
+                if (cachedAt == null)
+                    RESULTS.store(querier);
+                querier.getTransformedResults();
+            }
+            return Templates.listConnectorResults(querier)
+                .data("cachedAt", cachedAt)
+                .data("session", querierSession == null ? null : querierSession.getId())
+                .onRendered(querier::close);
+        });
+        return Templates.job(job);
+    }
 
-        return Templates.listConnectorResults(querier);
+    /**
+     * Same as {@link #getConnectorResults} except that each transformed row is rendered and sent to the browser as soon
+     * as it has been read, instead of only once all of the rows have been read and converted. The rows are streamed as
+     * HTML fragments separated by {@link #STREAM_DELIMITER}, followed by a final status fragment (with any error which
+     * happened after the first row). If the browser aborts the request then the query is cancelled.
+     */
+    @POST
+    @Path("/results/connector/stream")
+    @Produces(MediaType.TEXT_HTML)
+    public Multi<String> streamConnectorResults(
+        @RestForm String datasource,
+        @RestForm JdbcSourceQuerier.Dialect dialect,
+        @RestForm String jdbcUrl,
+        @RestForm String username,
+        @RestForm String password,
+
+        @RestForm String query,
+        @RestForm int rowsLimit,
+
+        @RestForm JdbcSourceQuerier.Mode mode,
+        @RestForm String timeZone,
+        @RestForm List<String> timestampColumnNames,
+        @RestForm String incrementingColumnName,
+
+        @RestForm String offsetTimestamp,
+        @RestForm String offsetIncrementing,
+
+        @RestForm String schemaMetadataName,
+        @RestForm String keyField,
+        @RestForm String personnummerField,
+
+        @RestForm String originatingSystemId,
+        @RestForm String originatingSystemIdentifiersField,
+        @RestForm String originatingSystemIdentifiersFieldOperation,
+        @RestForm String originatingSystemVersionIdField,
+        @RestForm String originatingSystemVersionIdFieldOperation,
+        @RestForm String originatingSystemTimeField,
+        @RestForm String originatingSystemTimeFieldOperation,
+
+        @RestForm List<String> transformationDefinition
+    ) throws JsonMappingException, JsonProcessingException {
+
+        List<TransformationDefinition> transformations = buildTransformations(schemaMetadataName, keyField,
+            personnummerField, originatingSystemId, originatingSystemIdentifiersField,
+            originatingSystemIdentifiersFieldOperation, originatingSystemVersionIdField,
+            originatingSystemVersionIdFieldOperation, originatingSystemTimeField, originatingSystemTimeFieldOperation,
+            transformationDefinition);
+
+        DataSource ds = resolveDataSource(datasource, dialect, jdbcUrl, username, password);
+        JdbcSourceQuerier querier = new JdbcSourceQuerier(
+            ds.dialect(), ds.jdbcUrl(), ds.username(), ds.password(),
+            finalQueryText(datasource, query),
+            // the form's limit only applies to the stream (which is not capped), the list limit is never used here
+            mode, timestampColumnNames, TimeZone.getTimeZone(timeZone), incrementingColumnName, JdbcSourceQuerier.MAX_ROWS_LIMIT,
+            transformations);
+        configureQuerier(querier, datasource, ds);
+        // there is no session (or next page) for streamed results, but they can still start from the given offset
+        setStartingOffset(querier, offsetTimestamp, offsetIncrementing);
+        querier.setStreamRowsLimit(rowsLimit);
+
+        return Multi.createFrom().<String>emitter(emitter -> {
+            // e.g. the browser aborted the request, so stop the query (it is harmless once the query has finished)
+            emitter.onTermination(querier::cancel);
+            int count = 0;
+            try (querier; Stream<SourceRecord> records = querier.streamTransformedResults()) {
+                for (SourceRecord record : (Iterable<SourceRecord>) records::iterator) {
+                    if (emitter.isCancelled())
+                        return;
+                    emitter.emit(Templates.connectorRow(record, ++count).render() + STREAM_DELIMITER);
+                }
+                emitter.emit(Templates.streamStatus(count, null).render());
+            } catch (Exception e) {
+                // the response has already started, so the error can only be shown as part of the stream
+                if (!emitter.isCancelled())
+                    emitter.emit(Templates.streamStatus(count, e.toString()).render());
+            }
+            emitter.complete();
+        })
+        // the query and conversions are blocking, so run them on a worker thread and not the event loop
+        .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    /**
+     * Returns the results of the job if it has finished, otherwise its current status (which will poll again).
+     */
+    @GET
+    @Path("/jobs/{id}")
+    public TemplateInstance getJob(@PathParam("id") String id) throws Exception {
+        Job job = JOBS.get(id);
+        if (job == null)
+            throw new NotFoundException("Query job " + id + " does not exist (or its results have already been shown)");
+        if (job.isActive())
+            return Templates.job(job);
+        TemplateInstance results = JOBS.collect(job);
+        return results != null ? results : Templates.job(job);
+    }
+
+    @POST
+    @Path("/jobs/{id}/cancel")
+    public TemplateInstance cancelJob(@PathParam("id") String id) {
+        Job job = JOBS.cancel(id);
+        if (job == null)
+            throw new NotFoundException("Query job " + id + " does not exist (or its results have already been shown)");
+        return Templates.job(job);
     }
 
 }
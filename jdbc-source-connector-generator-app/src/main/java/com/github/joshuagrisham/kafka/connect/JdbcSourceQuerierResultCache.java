@@ -0,0 +1,157 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Keeps the raw (untransformed) results of recently previewed queries for a short time, so that previewing the same
+ * query again (e.g. while only changing its transformations or schema name) only applies the transformations to the
+ * cached rows instead of running the query again.
+ * <p>
+ * Results are cached by datasource, expanded query text, mode, timestamp/incrementing columns, starting offset and
+ * rows limit, and are evicted once they are older than the TTL or when there are too many of them (least recently used
+ * first).
+ */
+@ApplicationScoped
+public class JdbcSourceQuerierResultCache {
+
+    public static final String METRIC_RESULT_CACHE = "querier.result.cache";
+
+    @ConfigProperty(name = "querier.results-cache.ttl", defaultValue = "PT1M")
+    Duration ttl;
+
+    @ConfigProperty(name = "querier.results-cache.max-entries", defaultValue = "50")
+    int maxEntries;
+
+    @Inject
+    MeterRegistry REGISTRY;
+
+    private static class Entry {
+        private final List<SourceRecord> results;
+        private final Instant cachedAt;
+
+        private Entry(List<SourceRecord> results) {
+            this.results = results;
+            this.cachedAt = Instant.now();
+        }
+    }
+
+    // Access-ordered so that the least recently used results are evicted first
+    private final Map<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final AtomicLong hitCount = new AtomicLong();
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    private final AtomicLong missCount = new AtomicLong();
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @PostConstruct
+    void init() {
+        FunctionCounter.builder(METRIC_RESULT_CACHE + ".hits", this, JdbcSourceQuerierResultCache::getHitCount)
+            .register(REGISTRY);
+        FunctionCounter.builder(METRIC_RESULT_CACHE + ".misses", this, JdbcSourceQuerierResultCache::getMissCount)
+            .register(REGISTRY);
+        Gauge.builder(METRIC_RESULT_CACHE + ".size", this, JdbcSourceQuerierResultCache::size)
+            .register(REGISTRY);
+    }
+
+    /**
+     * Sets the cached results of an identical query on the querier, if there are any which have not expired.
+     * @param querier
+     * @return when the results were cached, or null if there were none (so the query still needs to be run)
+     */
+    public Instant restore(JdbcSourceQuerier querier) {
+        List<Object> key = key(querier);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        querier.setQueryResults(entry.results);
+        return entry.cachedAt;
+    }
+
+    /**
+     * Caches the querier's (already fetched) query results.
+     * @param querier
+     */
+    public void store(JdbcSourceQuerier querier) throws ConnectException, SQLException {
+        Entry entry = new Entry(List.copyOf(querier.getQueryResults()));
+        synchronized (entries) {
+            entries.put(key(querier), entry);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the number of cached results (including any which have expired but not been evicted yet)
+     */
+    public int size() {
+        synchronized (entries) {
+            entries.values().removeIf(this::isExpired);
+            return entries.size();
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        return entry.cachedAt.plus(ttl).isBefore(Instant.now());
+    }
+
+    private static List<Object> key(JdbcSourceQuerier querier) {
+        // the connection details are part of the key (only in memory) so that a custom datasource's results are only
+        // shared with the same connection and credentials
+        return Arrays.asList(
+            querier.getDataSourceName(),
+            querier.getDialect(),
+            querier.getJdbcUrl(),
+            querier.getUsername(),
+            querier.getPassword(),
+            querier.getQuery(),
+            querier.getMode(),
+            querier.getTimeZone() != null ? querier.getTimeZone().getID() : null,
+            querier.getTimestampColumnNames(),
+            querier.getIncrementingColumnName(),
+            querier.getStartingOffset(),
+            querier.getRowsLimit());
+    }
+
+}
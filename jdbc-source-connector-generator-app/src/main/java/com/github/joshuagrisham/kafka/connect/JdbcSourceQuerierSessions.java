@@ -0,0 +1,77 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Keeps track of the last offset reached by each querier "session" so that a user can page forward through the
+ * results of a query (continuing from where the previous page ended) instead of re-scanning it from the start.
+ */
+@ApplicationScoped
+public class JdbcSourceQuerierSessions {
+
+    public static final Duration SESSION_TIMEOUT = Duration.ofMinutes(30);
+    public static final int MAX_SESSIONS = 1000;
+
+    public static class Session {
+        private final String id;
+        public String getId() {
+            return id;
+        }
+
+        private volatile Map<String, Object> nextOffset;
+        public Map<String, Object> getNextOffset() {
+            return nextOffset;
+        }
+        public void setNextOffset(Map<String, Object> nextOffset) {
+            this.nextOffset = nextOffset;
+        }
+
+        private volatile long lastAccessed;
+        public long getLastAccessed() {
+            return lastAccessed;
+        }
+
+        private Session(String id) {
+            this.id = id;
+            this.lastAccessed = System.currentTimeMillis();
+        }
+    }
+
+    // Access-ordered, so that once there are too many sessions the least recently used one is evicted
+    private final Map<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    };
+
+    /**
+     * Returns the existing session with the given id, or creates a new one if the id is blank or the session has
+     * expired (or been evicted).
+     * @param id
+     * @return the session
+     */
+    public Session getOrCreate(String id) {
+        synchronized (sessions) {
+            evictExpired();
+            Session session = JdbcSourceConnectorUtils.isBlank(id) ? null : sessions.get(id);
+            if (session == null) {
+                session = new Session(UUID.randomUUID().toString());
+                sessions.put(session.getId(), session);
+            }
+            session.lastAccessed = System.currentTimeMillis();
+            return session;
+        }
+    }
+
+    private void evictExpired() {
+        long expiredBefore = System.currentTimeMillis() - SESSION_TIMEOUT.toMillis();
+        sessions.values().removeIf(session -> session.getLastAccessed() < expiredBefore);
+    }
+
+}
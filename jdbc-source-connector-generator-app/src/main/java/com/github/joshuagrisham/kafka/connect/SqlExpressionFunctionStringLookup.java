@@ -1,14 +1,23 @@
 package com.github.joshuagrisham.kafka.connect;
 
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.StringSubstitutor;
 import org.apache.commons.text.lookup.StringLookup;
 
+/**
+ * Looks up <code>${sql:expression_name:expression_value}</code> functions using the named SQL expressions (and their
+ * parameters) of one datasource. The expressions are compiled into {@link SqlExpressionTemplate}s once, with all of the
+ * datasource's parameters already substituted, so that each lookup only needs to fill in the expression value.
+ */
 public class SqlExpressionFunctionStringLookup implements StringLookup {
 
+    // Name of the parameter which the expression value is given as
+    public static final String EXPRESSION_VALUE_PARAMETER = "expressionValue";
+
     // Ideally, we could just extend AbstractStringLookup but it is an abstract class, so re-create some of it here to give roughly the same API
     // see: https://github.com/apache/commons-text/blob/master/src/main/java/org/apache/commons/text/lookup/AbstractStringLookup.java
 
@@ -47,6 +56,7 @@ public class SqlExpressionFunctionStringLookup implements StringLookup {
     }
     public void setDatasourceName(String datasourceName) {
         this.datasourceName = datasourceName;
+        compiledExpressions = null;
     }
 
     private Map<String, Map<String, String>> expressions;
@@ -55,6 +65,7 @@ public class SqlExpressionFunctionStringLookup implements StringLookup {
     }
     public void setExpressions(Map<String, Map<String, String>> expressions) {
         this.expressions = expressions;
+        compiledExpressions = null;
     }
 
     private Map<String, Map<String, String>> parameters;
@@ -63,6 +74,27 @@ public class SqlExpressionFunctionStringLookup implements StringLookup {
     }
     public void setParameters(Map<String, Map<String, String>> parameters) {
         this.parameters = parameters;
+        compiledExpressions = null;
+    }
+
+    private volatile Map<String, SqlExpressionTemplate> compiledExpressions;
+    /**
+     * Returns this datasource's expressions compiled with its parameters, compiling them on the first call only.
+     * @return the compiled expressions by name, or null if there are no expressions for this datasource
+     */
+    public Map<String, SqlExpressionTemplate> getCompiledExpressions() {
+        Map<String, SqlExpressionTemplate> compiled = compiledExpressions;
+        if (compiled == null && expressions != null && expressions.get(this.datasourceName) != null) {
+            Map<String, String> datasourceParameters = parameters != null ? parameters.get(this.datasourceName) : null;
+            compiled = new HashMap<>();
+            for (Map.Entry<String, String> expression : expressions.get(this.datasourceName).entrySet()) {
+                compiled.put(expression.getKey(), SqlExpressionTemplate.compile(expression.getValue(), datasourceParameters,
+                    Set.of(EXPRESSION_VALUE_PARAMETER)));
+            }
+            compiled = Collections.unmodifiableMap(compiled);
+            compiledExpressions = compiled;
+        }
+        return compiled;
     }
 
     public SqlExpressionFunctionStringLookup(String datasourceName, Map<String, Map<String, String>> expressions,
@@ -89,22 +121,15 @@ public class SqlExpressionFunctionStringLookup implements StringLookup {
         final String expressionName = keys[0];
         final String expressionValue = StringUtils.substringAfter(key, SPLIT_CH);
 
-        if (expressions.get(this.datasourceName) == null || !expressions.get(this.datasourceName).containsKey(expressionName))
+        // Fetch the configured SQL expression, which has already been compiled with any additionally configured SQL
+        // expression parameters for this datasource
+        Map<String, SqlExpressionTemplate> compiled = getCompiledExpressions();
+        SqlExpressionTemplate expression = compiled != null ? compiled.get(expressionName) : null;
+        if (expression == null)
             throw new IllegalArgumentException("Named SQL expression \"" + expressionName + "\" not found for datasource name \"" + this.datasourceName + "\"");
 
-        // Fetch the configured SQL expression
-        String expression = expressions.get(this.datasourceName).get(expressionName);
-
-        // Set up expression_value substitution parameter
-        Map<String, String> params = new LinkedHashMap<>();
-        params.put("expressionValue", expressionValue);
-
-        // Fetch any additionally configured SQL expression parameters for this datasource
-        if (parameters != null && parameters.containsKey(this.datasourceName))
-            params.putAll(parameters.get(this.datasourceName));
-
-        // Return the final expression after substituting any parameters (including the given expression_value)
-        return new StringSubstitutor(params).replace(expression);
+        // Return the final expression after substituting the given expression_value
+        return expression.render(parameter -> EXPRESSION_VALUE_PARAMETER.equals(parameter) ? expressionValue : null);
     }
 
 }
@@ -0,0 +1,132 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.text.lookup.StringLookup;
+import org.apache.commons.text.lookup.StringLookupFactory;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithParentName;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Expands the <code>${sql:expression_name:expression_value}</code> functions (and any other
+ * {@link StringLookupFactory#interpolatorStringLookup() interpolator} lookups such as <code>${env:NAME}</code>) in
+ * queries, using the named SQL expressions and parameters of each datasource from the configuration.
+ * <p>
+ * The expressions are compiled once per datasource and fully expanded queries are cached by datasource and query text,
+ * so that previewing the same query again (e.g. the next page of its results) does not need to expand it again.
+ */
+@ApplicationScoped
+public class SqlExpressionQueryExpander {
+
+    public static final int MAX_CACHED_QUERIES = 500;
+
+    // The values of the lookups can themselves contain more lookups, but not forever
+    private static final int MAX_NESTED_LOOKUPS = 10;
+
+    private static final String SQL_LOOKUP_PREFIX = "sql:";
+
+    @ConfigMapping(prefix = "sql.expressions")
+    public interface SqlExpressions {
+        @WithParentName
+        Map<String, Map<String, String>> map();
+    }
+    @Inject
+    SqlExpressions sqlExpressions;
+
+    @ConfigMapping(prefix = "sql.parameters")
+    public interface SqlParameters {
+        @WithParentName
+        Map<String, Map<String, String>> map();
+    }
+    @Inject
+    SqlParameters sqlParameters;
+
+    // All other lookups (i.e. the default ones) are resolved by the same interpolator as before, minus "sql"
+    private static final StringLookup DEFAULT_LOOKUPS = StringLookupFactory.INSTANCE.interpolatorStringLookup();
+
+    private final Map<String, SqlExpressionFunctionStringLookup> sqlLookups = new ConcurrentHashMap<>();
+
+    // Access-ordered so that the least recently used query is evicted first
+    private final Map<List<String>, String> expandedQueries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, String> eldest) {
+            return size() > MAX_CACHED_QUERIES;
+        }
+    };
+
+    @PostConstruct
+    void init() {
+        // compile all of the expressions up front so that any problems with them show up at startup
+        for (String datasourceName : sqlExpressions.map().keySet())
+            getSqlLookup(datasourceName).getCompiledExpressions();
+    }
+
+    private SqlExpressionFunctionStringLookup getSqlLookup(String datasourceName) {
+        if (datasourceName == null) // e.g. a custom datasource, which cannot have any expressions
+            return new SqlExpressionFunctionStringLookup(null, sqlExpressions.map(), sqlParameters.map());
+        return sqlLookups.computeIfAbsent(datasourceName,
+            name -> new SqlExpressionFunctionStringLookup(name, sqlExpressions.map(), sqlParameters.map()));
+    }
+
+    /**
+     * Returns the query with all of its lookups expanded.
+     * @param datasourceName name of the datasource whose SQL expressions should be used
+     * @param query
+     * @return the expanded query
+     */
+    public String expand(String datasourceName, String query) {
+        if (query == null || query.indexOf(SqlExpressionTemplate.VARIABLE_PREFIX) < 0)
+            return query;
+
+        List<String> key = Arrays.asList(datasourceName, query);
+        synchronized (expandedQueries) {
+            String expanded = expandedQueries.get(key);
+            if (expanded != null)
+                return expanded;
+        }
+
+        boolean[] cacheable = { true };
+        String expanded = expand(getSqlLookup(datasourceName), query, cacheable, 0);
+        // the values of other lookups (e.g. dates or environment variables) could change, so only cache the query if
+        // it only used the SQL expressions
+        if (cacheable[0]) {
+            synchronized (expandedQueries) {
+                expandedQueries.put(key, expanded);
+            }
+        }
+        return expanded;
+    }
+
+    private String expand(SqlExpressionFunctionStringLookup sqlLookup, String text, boolean[] cacheable, int depth) {
+        if (depth > MAX_NESTED_LOOKUPS)
+            throw new IllegalStateException("Too many nested lookups in \"" + text + "\"");
+        return SqlExpressionTemplate.parse(text).render(variable -> {
+            String value;
+            if (variable.regionMatches(true, 0, SQL_LOOKUP_PREFIX, 0, SQL_LOOKUP_PREFIX.length())) {
+                value = sqlLookup.lookup(variable.substring(SQL_LOOKUP_PREFIX.length()));
+            } else {
+                cacheable[0] = false;
+                value = DEFAULT_LOOKUPS.lookup(variable);
+            }
+            // same as the StringSubstitutor, the value itself can contain more lookups
+            if (value != null && value.contains(SqlExpressionTemplate.VARIABLE_PREFIX))
+                value = expand(sqlLookup, value, cacheable, depth + 1);
+            return value;
+        });
+    }
+
+    public void clearCache() {
+        synchronized (expandedQueries) {
+            expandedQueries.clear();
+        }
+    }
+
+}
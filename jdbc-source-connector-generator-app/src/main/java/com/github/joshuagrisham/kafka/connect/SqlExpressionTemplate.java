@@ -0,0 +1,227 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.commons.text.StringSubstitutor;
+
+/**
+ * A template with <code>${variable}</code> (or <code>${variable:-default}</code>) references, in the same syntax as the
+ * default {@link StringSubstitutor} (including escaping with <code>$${variable}</code>), which has been split into its
+ * literal text and variable segments once so that it can then be rendered any number of times in a single pass.
+ */
+public class SqlExpressionTemplate {
+
+    public static final String VARIABLE_PREFIX = "${";
+    public static final String VARIABLE_SUFFIX = "}";
+    public static final char ESCAPE_CHAR = '$';
+    public static final String DEFAULT_VALUE_DELIMITER = ":-";
+
+    public static class Segment {
+        // literal text, or null if this is a variable
+        private final String text;
+        public String getText() {
+            return text;
+        }
+
+        private final String variable;
+        public String getVariable() {
+            return variable;
+        }
+
+        // default value of the variable (from "${variable:-default}"), or null if there is none
+        private final String defaultValue;
+        public String getDefaultValue() {
+            return defaultValue;
+        }
+
+        // the variable as it was written in the template, which is kept as-is if it cannot be resolved
+        private final String reference;
+        public String getReference() {
+            return reference;
+        }
+
+        public boolean isVariable() {
+            return text == null;
+        }
+
+        private Segment(String text, String variable, String defaultValue, String reference) {
+            this.text = text;
+            this.variable = variable;
+            this.defaultValue = defaultValue;
+            this.reference = reference;
+        }
+
+        private static Segment literal(String text) {
+            return new Segment(text, null, null, text);
+        }
+    }
+
+    private final List<Segment> segments;
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    // Rough size of the rendered template to avoid growing the StringBuilder while rendering
+    private final int literalLength;
+
+    private SqlExpressionTemplate(List<Segment> segments) {
+        // merge any adjacent literals so that rendering appends as few strings as possible
+        List<Segment> merged = new ArrayList<>();
+        int length = 0;
+        for (Segment segment : segments) {
+            if (!segment.isVariable()) {
+                if (segment.getText().isEmpty())
+                    continue;
+                length += segment.getText().length();
+                if (!merged.isEmpty() && !merged.get(merged.size() - 1).isVariable()) {
+                    merged.set(merged.size() - 1, Segment.literal(merged.get(merged.size() - 1).getText() + segment.getText()));
+                    continue;
+                }
+            }
+            merged.add(segment);
+        }
+        this.segments = Collections.unmodifiableList(merged);
+        this.literalLength = length;
+    }
+
+    /**
+     * Splits the given template into its literal and variable segments.
+     * @param template
+     * @return the parsed template
+     */
+    public static SqlExpressionTemplate parse(String template) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < template.length()) {
+            int start = template.indexOf(VARIABLE_PREFIX, position);
+            if (start < 0) {
+                literal.append(template, position, template.length());
+                break;
+            }
+            // "$${variable}" is an escaped variable which should just be kept as the literal "${variable}"
+            if (start > 0 && template.charAt(start - 1) == ESCAPE_CHAR) {
+                literal.append(template, position, start - 1).append(VARIABLE_PREFIX);
+                position = start + VARIABLE_PREFIX.length();
+                continue;
+            }
+            int end = findVariableEnd(template, start + VARIABLE_PREFIX.length());
+            if (end < 0) {
+                // never closed, so not a variable
+                literal.append(template, position, template.length());
+                break;
+            }
+            literal.append(template, position, start);
+            if (literal.length() > 0) {
+                segments.add(Segment.literal(literal.toString()));
+                literal.setLength(0);
+            }
+            String name = template.substring(start + VARIABLE_PREFIX.length(), end);
+            String defaultValue = null;
+            int defaultIndex = name.indexOf(DEFAULT_VALUE_DELIMITER);
+            if (defaultIndex >= 0) {
+                defaultValue = name.substring(defaultIndex + DEFAULT_VALUE_DELIMITER.length());
+                name = name.substring(0, defaultIndex);
+            }
+            segments.add(new Segment(null, name, defaultValue, template.substring(start, end + VARIABLE_SUFFIX.length())));
+            position = end + VARIABLE_SUFFIX.length();
+        }
+        if (literal.length() > 0)
+            segments.add(Segment.literal(literal.toString()));
+        return new SqlExpressionTemplate(segments);
+    }
+
+    // Finds the suffix which closes the variable, skipping over any nested variables (same as StringSubstitutor)
+    private static int findVariableEnd(String template, int position) {
+        int nested = 0;
+        while (position < template.length()) {
+            if (template.startsWith(VARIABLE_PREFIX, position)) {
+                nested++;
+                position += VARIABLE_PREFIX.length();
+            } else if (template.startsWith(VARIABLE_SUFFIX, position)) {
+                if (nested == 0)
+                    return position;
+                nested--;
+                position += VARIABLE_SUFFIX.length();
+            } else {
+                position++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compiles the given template by resolving all of its variables which are one of the given (constant) parameters,
+     * including any variables within the parameter values themselves, so that only the remaining variables need to be
+     * resolved when rendering. Variables which are neither parameters nor one of the kept variables are resolved to
+     * their default value (if they have one) or otherwise kept as-is, same as the {@link StringSubstitutor} would.
+     * @param template
+     * @param parameters
+     * @param keptVariables variables which should be kept so that they can be given when rendering
+     * @return the compiled template
+     * @throws IllegalStateException if parameters reference each other in a cycle
+     */
+    public static SqlExpressionTemplate compile(String template, Map<String, String> parameters, Set<String> keptVariables) {
+        List<Segment> segments = new ArrayList<>();
+        inline(parse(template), parameters, keptVariables, new HashSet<>(), segments);
+        return new SqlExpressionTemplate(segments);
+    }
+
+    private static void inline(SqlExpressionTemplate template, Map<String, String> parameters, Set<String> keptVariables,
+        Set<String> resolving, List<Segment> segments)
+    {
+        for (Segment segment : template.getSegments()) {
+            if (!segment.isVariable() || keptVariables.contains(segment.getVariable())) {
+                segments.add(segment);
+                continue;
+            }
+            String value = parameters != null ? parameters.get(segment.getVariable()) : null;
+            if (value == null)
+                value = segment.getDefaultValue();
+            if (value == null) {
+                segments.add(Segment.literal(segment.getReference()));
+                continue;
+            }
+            // the value of a parameter can itself reference other parameters
+            if (!resolving.add(segment.getVariable()))
+                throw new IllegalStateException("Infinite loop in property interpolation of " + segment.getReference());
+            inline(parse(value), parameters, keptVariables, resolving, segments);
+            resolving.remove(segment.getVariable());
+        }
+    }
+
+    /**
+     * Renders the template by appending its literals and the values of its variables.
+     * @param resolver returns the value of the given variable, or null if it cannot be resolved (in which case its
+     *                 default value is used if it has one, otherwise it is kept as-is)
+     * @return the rendered template
+     */
+    public String render(Function<String, String> resolver) {
+        StringBuilder builder = new StringBuilder(literalLength + 16 * segments.size());
+        for (Segment segment : segments) {
+            if (!segment.isVariable()) {
+                builder.append(segment.getText());
+                continue;
+            }
+            String value = resolver.apply(segment.getVariable());
+            if (value == null)
+                value = segment.getDefaultValue() != null ? segment.getDefaultValue() : segment.getReference();
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return true if the template has any variables, otherwise false
+     */
+    public boolean hasVariables() {
+        return segments.stream().anyMatch(Segment::isVariable);
+    }
+
+}
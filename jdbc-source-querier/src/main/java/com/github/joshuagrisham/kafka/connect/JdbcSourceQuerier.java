@@ -1,12 +1,36 @@
 package com.github.joshuagrisham.kafka.connect;
 
 import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import javax.sql.DataSource;
+
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Schema.Type;
@@ -20,32 +44,90 @@ import io.confluent.connect.jdbc.dialect.DatabaseDialect;
 import io.confluent.connect.jdbc.dialect.DatabaseDialects;
 import io.confluent.connect.jdbc.source.JdbcSourceConnectorConfig;
 import io.confluent.connect.jdbc.source.JdbcSourceTaskConfig;
+import io.confluent.connect.jdbc.source.SchemaMapping;
 import io.confluent.connect.jdbc.source.TimestampIncrementingOffset;
 import io.confluent.connect.jdbc.source.TimestampIncrementingTableQuerier;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 
-@JsonIgnoreProperties({"queryResultsAsStructs", "querySchema"})
-public class JdbcSourceQuerier {
+@JsonIgnoreProperties({"queryResultsAsStructs", "querySchema", "incremental", "nextOffset", "cancelled", "schemaOnly",
+    "transformedSchema", "profiling", "executionProfile", "transformationParallelism", "transformationExecutor"})
+public class JdbcSourceQuerier implements AutoCloseable {
 
+    /**
+     * The supported databases, each with the connector's dialect for it plus how the preview should limit and order its
+     * query, the default fetch size and how to explain the query when profiling it.
+     */
     public enum Dialect {
-        SQLSERVER("SqlServerDatabaseDialect"),
-        POSTGRES("PostgreSqlDatabaseDialect");
-        //TODO test/implement more of them? [Db2DatabaseDialect, MySqlDatabaseDialect, SybaseDatabaseDialect, GenericDatabaseDialect, OracleDatabaseDialect, SqlServerDatabaseDialect, PostgreSqlDatabaseDialect, SqliteDatabaseDialect, DerbyDatabaseDialect, SapHanaDatabaseDialect, VerticaDatabaseDialect]
+        // OFFSET/FETCH requires an ORDER BY; ordering by the first column keeps repeated previews returning the same rows
+        // with SHOWPLAN_XML turned on, the query itself returns its estimated plan instead of running
+        SQLSERVER("SqlServerDatabaseDialect", " OFFSET 0 ROWS FETCH NEXT %d ROWS ONLY", " ORDER BY 1", 0, "%s", "xml"),
+        // the driver otherwise reads all rows into memory at once
+        POSTGRES("PostgreSqlDatabaseDialect", " LIMIT %d", "", 100, "EXPLAIN (FORMAT JSON) %s", "json"),
+        ORACLE("OracleDatabaseDialect", " FETCH FIRST %d ROWS ONLY", "", 100, null, null), // 12c or later; driver default fetch size is only 10
+        MYSQL("MySqlDatabaseDialect", " LIMIT %d", "", 0, "EXPLAIN FORMAT=JSON %s", "json"), // also MariaDB
+        DB2("Db2DatabaseDialect", " FETCH FIRST %d ROWS ONLY", "", 100, null, null),
+        SQLITE("SqliteDatabaseDialect", " LIMIT %d", "", 0, "EXPLAIN QUERY PLAN %s", "text"),
+        DERBY("DerbyDatabaseDialect", " FETCH FIRST %d ROWS ONLY", "", 0, null, null),
+        SYBASE("SybaseDatabaseDialect", null, "", 0, null, null), // only has TOP, which cannot be added as a suffix
+        SAPHANA("SapHanaDatabaseDialect", " LIMIT %d", "", 0, null, null),
+        VERTICA("VerticaDatabaseDialect", " LIMIT %d", "", 0, "EXPLAIN %s", "text"),
+        GENERIC("GenericDatabaseDialect", " FETCH FIRST %d ROWS ONLY", "", 0, "EXPLAIN %s", "text"); // e.g. for H2 or other embedded databases; standard SQL:2008 syntax
 
         public final String className;
-        private Dialect(String className) {
+        // Appended to the query to limit its rows, or null if the limit should be set with Statement#setMaxRows instead
+        public final String limitSuffixFormat;
+        // Appended before the limit suffix if the query is not already ordered by its timestamp or incrementing columns
+        public final String noFilterSuffix;
+        // Fetch size to use if none has been set, or 0 for the driver's default
+        public final int defaultFetchSize;
+        // Query which returns the estimated plan of the given query, or null if explaining is not supported
+        public final String explainFormat;
+        public final String planFormat;
+
+        private Dialect(String className, String limitSuffixFormat, String noFilterSuffix, int defaultFetchSize,
+            String explainFormat, String planFormat)
+        {
             this.className = className;
+            this.limitSuffixFormat = limitSuffixFormat;
+            this.noFilterSuffix = noFilterSuffix;
+            this.defaultFetchSize = defaultFetchSize;
+            this.explainFormat = explainFormat;
+            this.planFormat = planFormat;
+        }
+
+        /**
+         * @param rowsLimit maximum number of rows the query should return, or 0 for no limit
+         * @param incremental true if the query is already ordered by its timestamp or incrementing columns
+         * @return the suffix to append to the query to limit (and if needed order) its rows, which is empty if there
+         * is no limit or the limit should be set on the statement instead
+         */
+        public String querySuffix(long rowsLimit, boolean incremental) {
+            if (rowsLimit <= 0 || limitSuffixFormat == null)
+                return "";
+            String querySuffix = String.format(limitSuffixFormat, rowsLimit);
+            return incremental ? querySuffix : noFilterSuffix + querySuffix;
         }
     }
 
-    private static final Map<Dialect, String> NO_FILTER_SUFFIX_FORMATS = Map.of(
-        Dialect.POSTGRES, "",
-        Dialect.SQLSERVER, " ORDER BY 1"
-    );
+    private static final String SQLSERVER_SHOWPLAN_ON = "SET SHOWPLAN_XML ON";
+    private static final String SQLSERVER_SHOWPLAN_OFF = "SET SHOWPLAN_XML OFF";
+
+    // Used to get the query's metadata by executing it if the driver cannot describe a prepared statement without executing it
+    private static final String EMPTY_QUERY_FORMAT = "SELECT * FROM (%s) empty_query WHERE 1=0";
 
-    private static final Map<Dialect, String> LIMIT_SUFFIX_FORMATS = Map.of(
-        Dialect.POSTGRES, " LIMIT %d",
-        Dialect.SQLSERVER, " OFFSET 0 ROWS FETCH NEXT %d ROWS ONLY"
-    );
+    // Names of the timers recorded for each phase of running the query (see JdbcSourceQuerier#setMeterRegistry)
+    public static final String METRIC_DIALECT_CREATE = "querier.dialect.create";
+    public static final String METRIC_CONNECTION_OPEN = "querier.connection.open";
+    public static final String METRIC_QUERY_START = "querier.query.start";
+    public static final String METRIC_ROW_EXTRACT = "querier.row.extract";
+    public static final String TAG_DATASOURCE = "datasource";
+    public static final String TAG_DIALECT = "dialect";
+    // Tag value used when the datasource name or dialect has not been set
+    public static final String TAG_NONE = "none";
 
     private Dialect dialect;
     public Dialect getDialect() {
@@ -85,6 +167,7 @@ public class JdbcSourceQuerier {
     }
     public void setQuery(String query) {
         this.query = query.replaceAll("[\\t\\n\\r]+"," ");
+        probedQuerySchema = null;
     }
 
     private transient JdbcSourceTaskConfig config;
@@ -110,7 +193,11 @@ public class JdbcSourceQuerier {
     public void setConnectorDialect(Dialect dialect, JdbcSourceTaskConfig config) {
         setDialect(dialect);
         setConfig(config);
-        setConnectorDialect(DatabaseDialects.create(dialect.className, config));
+        // the dialect is usually built before the datasource name has been set, so it is only tagged by its dialect
+        setConnectorDialect(Timer.builder(METRIC_DIALECT_CREATE)
+            .tags(Tags.of(TAG_DIALECT, dialect.name()))
+            .register(meterRegistry)
+            .record(() -> DatabaseDialects.create(dialect.className, config)));
     }
     /**
      * Sets field values for all given parameters, builds and sets a new {@link JdbcSourceTaskConfig} using the given
@@ -181,23 +268,294 @@ public class JdbcSourceQuerier {
         this.incrementingColumnName = incrementingColumnName;
     }
 
+    /**
+     * @return true if the query will be filtered and ordered by timestamp and/or incrementing columns (so that its
+     * results can be continued from an offset), otherwise false
+     */
+    public boolean isIncremental() {
+        return !(getIncrementingColumnName() == null || getIncrementingColumnName().isBlank()) ||
+            !(getTimestampColumnNames() == null || getTimestampColumnNames().size() == 0);
+    }
+
+    private transient Map<String, Object> startingOffset;
+    public Map<String, Object> getStartingOffset() {
+        return startingOffset;
+    }
+    /**
+     * Sets the offset (in the same format as {@link TimestampIncrementingOffset#toMap()}) which the query should
+     * continue from, instead of starting from the beginning. Any already fetched results are discarded.
+     * @param startingOffset the offset to continue from, or null to start from the beginning
+     */
+    public void setStartingOffset(Map<String, Object> startingOffset) {
+        this.startingOffset = startingOffset;
+        queryResults = null;
+        transformedResults = null;
+        if (connectorQuerier != null && connectorDialect != null)
+            setConnectorQuerier(buildConnectorQuerier(getRowsLimit()));
+    }
+    /**
+     * Sets the offset which the query should continue from using the given timestamp and/or incrementing values.
+     * @param timestampOffset only rows with a timestamp later than this will be returned, or null for no timestamp offset
+     * @param incrementingOffset only rows with an incrementing value greater than this will be returned, or null for no
+     * incrementing offset
+     */
+    public void setStartingOffset(Timestamp timestampOffset, Long incrementingOffset) {
+        setStartingOffset(new TimestampIncrementingOffset(timestampOffset, incrementingOffset).toMap());
+    }
+
+    /**
+     * Returns the offset after the last row of the current query results, which can be given to
+     * {@link JdbcSourceQuerier#setStartingOffset(Map)} of a new querier to fetch the next page of results.
+     * @return the offset of the last row, or the {@link JdbcSourceQuerier#startingOffset} if there were no rows
+     */
+    public Map<String, Object> getNextOffset() throws ConnectException, SQLException {
+        List<SourceRecord> results = getQueryResults();
+        if (results.size() > 0) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> offset = (Map<String, Object>) results.get(results.size() - 1).sourceOffset();
+            return offset;
+        }
+        return getStartingOffset();
+    }
+
     public static final int MAX_ROWS_LIMIT = 100;
     private int rowsLimit;
     public int getRowsLimit() {
         return rowsLimit;
     }
+    /**
+     * Sets the maximum number of rows which {@link JdbcSourceQuerier#fetchQueryResults()} holds in memory. Unlike
+     * {@link JdbcSourceQuerier#setStreamRowsLimit(long)} there is no "no limit" value, so it must be between 1 and
+     * {@link JdbcSourceQuerier#MAX_ROWS_LIMIT}.
+     * @param rowsLimit maximum number of rows
+     */
     public void setRowsLimit(int rowsLimit) {
+        if (rowsLimit < 1)
+            throw new IllegalArgumentException("rowsLimit must be at least 1");
         if (rowsLimit > MAX_ROWS_LIMIT)
             throw new IllegalArgumentException("rowsLimit cannot be greater than the maximum allowed value of " + MAX_ROWS_LIMIT);
         this.rowsLimit = rowsLimit;
     }
 
+    private long streamRowsLimit;
+    public long getStreamRowsLimit() {
+        return streamRowsLimit;
+    }
+    /**
+     * Sets the maximum number of rows to read when using {@link JdbcSourceQuerier#streamQueryResults()}. Unlike
+     * {@link JdbcSourceQuerier#setRowsLimit(int)} this is not capped as the rows are never held in memory all at once.
+     * @param streamRowsLimit maximum number of rows, or 0 for no limit at all
+     */
+    public void setStreamRowsLimit(long streamRowsLimit) {
+        if (streamRowsLimit < 0)
+            throw new IllegalArgumentException("streamRowsLimit cannot be negative");
+        this.streamRowsLimit = streamRowsLimit;
+    }
+
+    private int fetchSize;
+    public int getFetchSize() {
+        return fetchSize;
+    }
+    /**
+     * Sets the JDBC fetch size hint (number of rows fetched from the database per round trip) for the query.
+     * @param fetchSize number of rows, or 0 to use the driver's or dialect's default
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    private int queryTimeoutSeconds;
+    public int getQueryTimeoutSeconds() {
+        return queryTimeoutSeconds;
+    }
+    /**
+     * Sets the JDBC query timeout (see {@link java.sql.Statement#setQueryTimeout(int)}) for the query, after which the
+     * driver will cancel it.
+     * @param queryTimeoutSeconds number of seconds, or 0 for no timeout
+     */
+    public void setQueryTimeoutSeconds(int queryTimeoutSeconds) {
+        if (queryTimeoutSeconds < 0)
+            throw new IllegalArgumentException("queryTimeoutSeconds cannot be negative");
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+    }
+
+    // The statement of the query which is currently executing (if any) so that it can be cancelled from another thread
+    private transient volatile PreparedStatement runningStatement;
+    private transient volatile boolean cancelled;
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    /**
+     * Cancels the query if it is currently executing (using {@link java.sql.Statement#cancel()}) and stops reading any
+     * more rows from it. This can be called from any thread; the thread running the query will then get an exception
+     * and close (or return to the pool) its connection as usual. Queries started after this will fail immediately.
+     */
+    public void cancel() {
+        cancelled = true;
+        PreparedStatement statement = runningStatement;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                throw new ConnectException("Failed to cancel the query", e);
+            }
+        }
+    }
+
+    private void checkNotCancelled() {
+        if (cancelled)
+            throw new ConnectException("The query was cancelled");
+    }
+
+    private transient MeterRegistry meterRegistry = Metrics.globalRegistry;
+    public MeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+    /**
+     * Sets the registry which the timers of each phase of running the query (creating the dialect, opening the
+     * connection, starting the query, extracting each row and applying each transformation) are recorded in. By default
+     * this is Micrometer's global registry, which does not record anything unless another registry has been added to it.
+     * @param meterRegistry
+     */
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = Objects.requireNonNull(meterRegistry);
+        // the chain's timers were registered in the previous registry
+        closeTransformationChain();
+    }
+
+    private transient String dataSourceName;
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+    /**
+     * Sets the name of the datasource which the querier's metrics are tagged with (together with its dialect).
+     * @param dataSourceName
+     */
+    public void setDataSourceName(String dataSourceName) {
+        this.dataSourceName = dataSourceName;
+        closeTransformationChain();
+    }
+
+    private Tags metricTags() {
+        return Tags.of(
+            TAG_DATASOURCE, dataSourceName != null ? dataSourceName : TAG_NONE,
+            TAG_DIALECT, dialect != null ? dialect.name() : TAG_NONE);
+    }
+
+    private Timer timer(String name) {
+        return Timer.builder(name).tags(metricTags()).register(meterRegistry);
+    }
+
+    private transient boolean profiling;
+    public boolean isProfiling() {
+        return profiling;
+    }
+    /**
+     * Sets if the next fetch of the query results should be profiled (see {@link JdbcSourceQuerier#getExecutionProfile()}).
+     * This costs an extra round trip to the database to explain the query once all of its rows have been read.
+     * @param profiling
+     */
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+    }
+
+    private transient QueryProfile executionProfile;
+    /**
+     * @return the profile of the last time the query results were fetched (and transformed) while
+     * {@link JdbcSourceQuerier#profiling} was set, or null if they have not been
+     */
+    public QueryProfile getExecutionProfile() {
+        return executionProfile;
+    }
+
+    private transient TransformationInstanceCache transformationInstanceCache;
+    public TransformationInstanceCache getTransformationInstanceCache() {
+        return transformationInstanceCache;
+    }
+    /**
+     * Sets a (shared) cache which already configured transformation instances should be borrowed from when building the
+     * {@link JdbcSourceQuerier#getTransformationChain()}, instead of building and configuring new ones every time.
+     * @param transformationInstanceCache
+     */
+    public void setTransformationInstanceCache(TransformationInstanceCache transformationInstanceCache) {
+        this.transformationInstanceCache = transformationInstanceCache;
+        closeTransformationChain();
+    }
+
+    // Parallel workers are only worth their own chain (and scheduling) for at least this many records each
+    public static final int MIN_RECORDS_PER_TRANSFORMATION_WORKER = 16;
+
+    private transient int transformationParallelism = 1;
+    public int getTransformationParallelism() {
+        return transformationParallelism;
+    }
+    /**
+     * Sets how many workers the query results should be split between when applying the transformations in
+     * {@link JdbcSourceQuerier#getTransformedResults()}. Each worker transforms a contiguous part of the results using its
+     * own {@link TransformationChain} (since most transformations are not thread-safe) and the parts are then joined
+     * again, so the transformed results are in the same order as when they are transformed serially.
+     * @param transformationParallelism number of workers, or 1 to transform all records serially on the calling thread
+     */
+    public void setTransformationParallelism(int transformationParallelism) {
+        if (transformationParallelism < 1)
+            throw new IllegalArgumentException("transformationParallelism must be at least 1");
+        this.transformationParallelism = transformationParallelism;
+    }
+
+    private transient Executor transformationExecutor = ForkJoinPool.commonPool();
+    public Executor getTransformationExecutor() {
+        return transformationExecutor;
+    }
+    /**
+     * Sets the executor which the parallel transformation workers run on (default is the common fork-join pool).
+     * @param transformationExecutor
+     */
+    public void setTransformationExecutor(Executor transformationExecutor) {
+        this.transformationExecutor = Objects.requireNonNull(transformationExecutor);
+    }
+
     private List<TransformationDefinition> transformations;
     public List<TransformationDefinition> getTransformations() {
         return transformations;
     }
     public void setTransformations(List<TransformationDefinition> transformations) {
         this.transformations = transformations;
+        // any existing chain and its results are no longer valid
+        closeTransformationChain();
+    }
+
+    private transient TransformationChain transformationChain;
+    /**
+     * Returns the {@link TransformationChain} for the current {@link JdbcSourceQuerier#transformations}, building and
+     * configuring all of the transformation instances on the first call only.
+     * @return the chain which will be closed when this querier is closed
+     */
+    public TransformationChain getTransformationChain() throws InstantiationException, IllegalAccessException,
+        IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException, ClassNotFoundException
+    {
+        if (transformationChain == null)
+            transformationChain = new TransformationChain(transformations, transformationInstanceCache, meterRegistry, metricTags());
+        return transformationChain;
+    }
+
+    private void closeTransformationChain() {
+        if (transformationChain != null)
+            transformationChain.close();
+        transformationChain = null;
+        transformedResults = null;
+    }
+
+    private transient DataSource pooledDataSource;
+    public DataSource getPooledDataSource() {
+        return pooledDataSource;
+    }
+    /**
+     * Sets a (pooled) {@link DataSource} which connections should be borrowed from when running the query. If this is
+     * not set then a new connection will be opened from the {@link JdbcSourceQuerier#connectorDialect} instead.
+     * @param pooledDataSource
+     */
+    public void setPooledDataSource(DataSource pooledDataSource) {
+        this.pooledDataSource = pooledDataSource;
     }
 
     private transient TimestampIncrementingTableQuerier connectorQuerier;
@@ -218,27 +576,36 @@ public class JdbcSourceQuerier {
 
         setConnectorDialect(dialect, jdbcUrl, username, password, query);
 
-        String querySuffix = String.format(LIMIT_SUFFIX_FORMATS.get(dialect), getRowsLimit());
+        connectorQuerier = buildConnectorQuerier(getRowsLimit());
 
-        if ((getIncrementingColumnName() == null || getIncrementingColumnName().isBlank()) &&
-            (getTimestampColumnNames() == null || getTimestampColumnNames().size() == 0))
-            querySuffix = NO_FILTER_SUFFIX_FORMATS.get(dialect) + querySuffix;
+        setConnectorQuerier(connectorQuerier);
+        return connectorQuerier;
+    }
 
-        connectorQuerier = new TimestampIncrementingTableQuerier(
+    /**
+     * Builds a new {@link TimestampIncrementingTableQuerier} based on the instance's current field values, using the
+     * already set {@link JdbcSourceQuerier#connectorDialect}.
+     * @param rowsLimit maximum number of rows the query should return, or 0 for no limit
+     * @return the new {@link TimestampIncrementingTableQuerier}
+     */
+    protected TimestampIncrementingTableQuerier buildConnectorQuerier(long rowsLimit) {
+
+        // without a limit suffix the limit is set on the statement instead (see JdbcSourceQuerier#startQuery)
+        String querySuffix = dialect.querySuffix(rowsLimit, isIncremental());
+
+        return new TimestampIncrementingTableQuerier(
             getConnectorDialect(),
             TimestampIncrementingTableQuerier.QueryMode.QUERY,
             getQuery(), // tableName or query
             "", // topicPrefix
             getMode() != Mode.INCREMENTING ? getTimestampColumnNames() : null, // timestampColumnNames
             getMode() != Mode.TIMESTAMP ? getIncrementingColumnName() : null, // incrementingColumnName
-            new TimestampIncrementingOffset(null, null).toMap(), // offsetMap; just default to start
+            getStartingOffset() != null ? getStartingOffset() : // offsetMap; continue from the given offset
+                new TimestampIncrementingOffset(null, null).toMap(), // or otherwise just default to start
             0L, // Timestamp delay (end time of query will be "now" minus this delay; should be 0 for our purposes)
             getTimeZone(),
             querySuffix,
             JdbcSourceConnectorConfig.TimestampGranularity.CONNECT_LOGICAL);
-
-        setConnectorQuerier(connectorQuerier);
-        return connectorQuerier;
     }
 
     private transient List<SourceRecord> queryResults;
@@ -248,16 +615,293 @@ public class JdbcSourceQuerier {
         else
             return queryResults;
     }
+    /**
+     * Sets already fetched query results (e.g. the cached results of an identical query) so that the query does not
+     * need to be executed again; only the transformations will be applied to them.
+     * @param queryResults the results, which should not be modified afterwards
+     */
+    public void setQueryResults(List<SourceRecord> queryResults) {
+        this.queryResults = queryResults;
+        transformedResults = null;
+        executionProfile = null;
+    }
     public List<SourceRecord> fetchQueryResults() throws ConnectException, SQLException {
         if (connectorQuerier == null) // if connectorQuerier is not set, try to run setup()
             setup(); // will fail if not all necessary fields have been set
-        connectorQuerier.maybeStartQuery(connectorDialect.getConnection());
-        queryResults = new ArrayList<>();
-        while (connectorQuerier.next()) {
-            queryResults.add(connectorQuerier.extractRecord());
+        QueryProfile profile = isProfiling() ? new QueryProfile() : null;
+        long connectStart = System.nanoTime();
+        try (Connection connection = openConnection()) {
+            if (profile != null)
+                profile.addPhase(QueryProfile.PHASE_CONNECT, System.nanoTime() - connectStart);
+            try {
+                // the profile captures the final SQL and its parameters from the statement which the connector prepares
+                startQuery(connectorQuerier, profile != null ? profile.capture(connection) : connection, getRowsLimit(),
+                    profile);
+                List<SourceRecord> results = new ArrayList<>();
+                transformedResults = null;
+                // each row is timed from the end of the previous one so that both next() and extractRecord() are included
+                Timer extractTimer = timer(METRIC_ROW_EXTRACT);
+                Clock clock = meterRegistry.config().clock();
+                long fetchStart = clock.monotonicTime();
+                long start = fetchStart;
+                while (connectorQuerier.next()) {
+                    checkNotCancelled();
+                    results.add(connectorQuerier.extractRecord());
+                    long end = clock.monotonicTime();
+                    extractTimer.record(end - start, TimeUnit.NANOSECONDS);
+                    start = end;
+                }
+                if (profile != null) {
+                    profile.addPhase(QueryProfile.PHASE_FETCH, clock.monotonicTime() - fetchStart);
+                    profile.setRows(results.size());
+                }
+                // only keep the results if all of them were read
+                queryResults = results;
+            } finally {
+                runningStatement = null;
+                // closes the result set and statement and commits the read transaction, but keeps the current offset
+                connectorQuerier.reset(System.currentTimeMillis(), false);
+            }
+            if (profile != null)
+                explain(connection, profile);
         }
+        executionProfile = profile;
         return queryResults;
     }
+
+    /**
+     * Executes the query on a new cursor and returns its results as a lazily populated {@link Stream}, so that only the
+     * rows which are currently being processed are held in memory. The number of rows is limited by
+     * {@link JdbcSourceQuerier#streamRowsLimit} instead of {@link JdbcSourceQuerier#rowsLimit}.
+     * <p>
+     * The connection is held open until the stream is closed, so it should always be used with try-with-resources.
+     * Any {@link SQLException} thrown while reading from the stream will be wrapped in a {@link ConnectException}.
+     * @return a sequential, ordered stream of the query results
+     * @throws ConnectException
+     * @throws SQLException
+     */
+    public Stream<SourceRecord> streamQueryResults() throws ConnectException, SQLException {
+        if (connectorQuerier == null) // if connectorQuerier is not set, try to run setup()
+            setup(); // will fail if not all necessary fields have been set
+        TimestampIncrementingTableQuerier streamQuerier = buildConnectorQuerier(getStreamRowsLimit());
+        Connection connection = openConnection();
+        try {
+            startQuery(streamQuerier, connection, getStreamRowsLimit(), null);
+        } catch (SQLException | RuntimeException e) {
+            closeStreamQuerier(streamQuerier, connection);
+            throw e;
+        }
+
+        Timer extractTimer = timer(METRIC_ROW_EXTRACT);
+        Clock clock = meterRegistry.config().clock();
+        Iterator<SourceRecord> iterator = new Iterator<SourceRecord>() {
+            private SourceRecord next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    checkNotCancelled();
+                    try {
+                        // unlike when fetching all rows, the time spent by the stream's consumer is not included
+                        long start = clock.monotonicTime();
+                        if (streamQuerier.next()) {
+                            next = streamQuerier.extractRecord();
+                            extractTimer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+                        } else {
+                            done = true;
+                        }
+                    } catch (SQLException e) {
+                        throw new ConnectException("Failed to read the next row from the query results", e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public SourceRecord next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                SourceRecord record = next;
+                next = null;
+                return record;
+            }
+        };
+
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(() -> closeStreamQuerier(streamQuerier, connection));
+    }
+
+    /**
+     * Same as {@link JdbcSourceQuerier#streamQueryResults()} but each record is passed through a new
+     * {@link TransformationChain} which is closed together with the stream. Records which are dropped by a
+     * transformation are not included.
+     */
+    public Stream<SourceRecord> streamTransformedResults() throws ConnectException, SQLException, InstantiationException,
+        IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException,
+        ClassNotFoundException
+    {
+        TransformationChain chain = new TransformationChain(transformations, transformationInstanceCache, meterRegistry, metricTags());
+        try {
+            return streamQueryResults()
+                .map(chain::apply)
+                .filter(Objects::nonNull)
+                .onClose(chain::close);
+        } catch (SQLException | RuntimeException e) {
+            chain.close();
+            throw e;
+        }
+    }
+
+    private void closeStreamQuerier(TimestampIncrementingTableQuerier streamQuerier, Connection connection) {
+        runningStatement = null;
+        try {
+            streamQuerier.reset(System.currentTimeMillis(), false);
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                throw new ConnectException("Failed to close the connection", e);
+            }
+        }
+    }
+
+    /**
+     * Creates the prepared statement (applying {@link JdbcSourceQuerier#fetchSize}, or otherwise the dialect's default
+     * fetch size, and {@link JdbcSourceQuerier#queryTimeoutSeconds} if they are set) and starts the query.
+     * @param rowsLimit the limit of the querier, which is set on the statement if the dialect cannot add it to the query
+     * @param profile where the time taken to prepare and execute the query should be added, or null if not profiling
+     */
+    private void startQuery(TimestampIncrementingTableQuerier querier, Connection connection, long rowsLimit,
+        QueryProfile profile) throws SQLException
+    {
+        checkNotCancelled();
+        Clock clock = meterRegistry.config().clock();
+        long prepareStart = clock.monotonicTime();
+        PreparedStatement statement = querier.getOrCreatePreparedStatement(connection);
+        if (profile != null)
+            profile.addPhase(QueryProfile.PHASE_PREPARE, clock.monotonicTime() - prepareStart);
+        int statementFetchSize = getFetchSize() > 0 ? getFetchSize() : dialect.defaultFetchSize;
+        if (statementFetchSize > 0)
+            statement.setFetchSize(statementFetchSize);
+        if (rowsLimit > 0 && dialect.limitSuffixFormat == null)
+            statement.setMaxRows((int) Math.min(rowsLimit, Integer.MAX_VALUE));
+        if (getQueryTimeoutSeconds() > 0)
+            statement.setQueryTimeout(getQueryTimeoutSeconds());
+        runningStatement = statement;
+        // in case it was cancelled while the statement was being prepared
+        checkNotCancelled();
+        long start = clock.monotonicTime();
+        try {
+            querier.maybeStartQuery(connection);
+        } finally {
+            long elapsed = clock.monotonicTime() - start;
+            timer(METRIC_QUERY_START).record(elapsed, TimeUnit.NANOSECONDS);
+            if (profile != null)
+                profile.addPhase(QueryProfile.PHASE_EXECUTE, elapsed);
+        }
+    }
+
+    /**
+     * Gets the database's estimated plan for the profile's captured SQL (with the same parameters) and sets it on the
+     * profile. Any failure to explain the query is only recorded in the profile, since the results were already fetched.
+     */
+    private void explain(Connection connection, QueryProfile profile) {
+        if (profile.getSql() == null)
+            return;
+        if (dialect.explainFormat == null) {
+            profile.setPlanError("Explaining the query is not supported for the " + dialect + " dialect");
+            return;
+        }
+        long start = System.nanoTime();
+        profile.setPlanFormat(dialect.planFormat);
+        // set while SHOWPLAN_XML is on, so that the connection is not returned to a pool with it still on
+        boolean showplan = false;
+        try {
+            if (dialect == Dialect.SQLSERVER) {
+                try (Statement statement = connection.createStatement()) {
+                    showplan = true;
+                    statement.execute(SQLSERVER_SHOWPLAN_ON);
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    String.format(dialect.explainFormat, profile.getSql()))) {
+                if (getQueryTimeoutSeconds() > 0)
+                    statement.setQueryTimeout(getQueryTimeoutSeconds());
+                profile.replayParameters(statement);
+                runningStatement = statement;
+                checkNotCancelled();
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    // the plan is in the last column (e.g. SQLite also returns the ids of each step before it)
+                    int planColumn = resultSet.getMetaData().getColumnCount();
+                    while (resultSet.next()) {
+                        if (plan.length() > 0)
+                            plan.append(System.lineSeparator());
+                        plan.append(resultSet.getString(planColumn));
+                    }
+                }
+                profile.setPlan(plan.toString());
+            } finally {
+                runningStatement = null;
+            }
+            if (showplan) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(SQLSERVER_SHOWPLAN_OFF);
+                }
+                showplan = false;
+            }
+            connection.commit();
+        } catch (SQLException | ConnectException e) {
+            profile.setPlanError(e.getMessage());
+            if (!showplan) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackException) {
+                    // the connection is closed right after this anyway
+                }
+            }
+        } finally {
+            if (showplan)
+                abort(connection);
+        }
+        profile.addPhase(QueryProfile.PHASE_EXPLAIN, System.nanoTime() - start);
+    }
+
+    /**
+     * Aborts the connection when it cannot be cleanly returned (e.g. SHOWPLAN_XML could not be turned off again), so that
+     * a pool discards it instead of handing it out to the next query as it is.
+     */
+    private static void abort(Connection connection) {
+        try {
+            // the physical connection, since a pool's own proxy might only mark itself as closed
+            connection.unwrap(Connection.class).abort(Runnable::run);
+        } catch (SQLException e) {
+            // nothing else can be done with it; the caller closes it right after this anyway
+        }
+    }
+
+    /**
+     * Opens a connection from the {@link JdbcSourceQuerier#pooledDataSource} if it has been set, otherwise opens a new
+     * connection from the {@link JdbcSourceQuerier#connectorDialect}. Either way the connection should be closed by the
+     * caller once the query is finished so that it is returned to the pool (or not leaked).
+     * @return an open {@link Connection} with auto-commit disabled (same as the connector's own source task)
+     * @throws SQLException
+     */
+    protected Connection openConnection() throws SQLException {
+        Connection connection;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            connection = pooledDataSource != null ?
+                pooledDataSource.getConnection() :
+                connectorDialect.getConnection();
+        } finally {
+            sample.stop(timer(METRIC_CONNECTION_OPEN));
+        }
+        connection.setAutoCommit(false);
+        return connection;
+    }
     public SourceRecord peekQueryResults() throws ConnectException, SQLException {
         if (getQueryResults().size() > 0)
             return getQueryResults().get(0);
@@ -274,26 +918,214 @@ public class JdbcSourceQuerier {
         return structs;
     }
 
+    /**
+     * Returns the schema of the query results, or (if the query returned no rows or
+     * {@link JdbcSourceQuerier#schemaOnly} is set) the schema from {@link JdbcSourceQuerier#probeQuerySchema()}.
+     */
     public Schema getQuerySchema() throws ConnectException, SQLException {
-        if (getQueryResults().size() > 0)
+        if (!isSchemaOnly() && getQueryResults().size() > 0)
             return getQueryResults().get(0).valueSchema();
-        return null;
+        return probeQuerySchema();
     }
 
-    private transient List<SourceRecord> transformedResults;
-    public List<SourceRecord> getTransformedResults() throws ConnectException, SQLException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException, ClassNotFoundException {
-        transformedResults = new ArrayList<>();
-        for (SourceRecord record : getQueryResults()) {
-            if (transformations != null) {
-                for (TransformationDefinition transformation : transformations) {
-                    record = buildTransformationInstance(transformation).apply(record);
+    private transient boolean schemaOnly;
+    public boolean isSchemaOnly() {
+        return schemaOnly;
+    }
+    /**
+     * Sets if only the schemas should be derived from the query's metadata (see
+     * {@link JdbcSourceQuerier#probeQuerySchema()} and {@link JdbcSourceQuerier#probeTransformedRecord()}), without
+     * fetching any rows, when calling {@link JdbcSourceQuerier#getQuerySchema()} or
+     * {@link JdbcSourceQuerier#getTransformedSchema()}.
+     * @param schemaOnly
+     */
+    public void setSchemaOnly(boolean schemaOnly) {
+        this.schemaOnly = schemaOnly;
+    }
+
+    private transient Schema probedQuerySchema;
+    /**
+     * Derives the schema of the query from its {@link ResultSetMetaData} using the dialect's schema mapping (in the same
+     * way as the connector does once the query has been executed) but without fetching any rows. The metadata is taken
+     * from the prepared statement if the driver supports describing it, otherwise the query is executed wrapped as
+     * {@code WHERE 1=0}. Either way the query does not need to return any rows, and it is not filtered, ordered or
+     * limited like when fetching the results.
+     * @return the schema, which is only probed on the first call
+     * @throws ConnectException
+     * @throws SQLException
+     */
+    public Schema probeQuerySchema() throws ConnectException, SQLException {
+        if (probedQuerySchema != null)
+            return probedQuerySchema;
+        if (connectorDialect == null)
+            setConnectorDialect(dialect, jdbcUrl, username, password, query);
+        checkNotCancelled();
+        try (Connection connection = openConnection();
+            PreparedStatement statement = connectorDialect.createPreparedStatement(connection, getQuery()))
+        {
+            if (getQueryTimeoutSeconds() > 0)
+                statement.setQueryTimeout(getQueryTimeoutSeconds());
+            runningStatement = statement;
+            ResultSetMetaData metadata = null;
+            try {
+                metadata = statement.getMetaData();
+            } catch (SQLException e) {
+                // not supported by this driver (or for this query), so fall back to executing the query instead
+            }
+            if (metadata != null) {
+                probedQuerySchema = SchemaMapping.create(null, metadata, connectorDialect).schema();
+            } else {
+                try (PreparedStatement emptyStatement = connectorDialect.createPreparedStatement(connection,
+                        String.format(EMPTY_QUERY_FORMAT, getQuery()))) {
+                    if (getQueryTimeoutSeconds() > 0)
+                        emptyStatement.setQueryTimeout(getQueryTimeoutSeconds());
+                    runningStatement = emptyStatement;
+                    checkNotCancelled();
+                    try (ResultSet resultSet = emptyStatement.executeQuery()) {
+                        probedQuerySchema = SchemaMapping.create(null, resultSet.getMetaData(), connectorDialect).schema();
+                    }
                 }
             }
-            transformedResults.add(record);
+            // same as after fetching the results, commit the read transaction
+            connection.commit();
+        } finally {
+            runningStatement = null;
+        }
+        return probedQuerySchema;
+    }
+
+    /**
+     * Pushes a synthetic record with the schema from {@link JdbcSourceQuerier#probeQuerySchema()} (and placeholder values
+     * such as 0 or "") through the {@link JdbcSourceQuerier#getTransformationChain()}, so that the transformed schema can
+     * be derived without fetching any rows. Transformations which derive the schema from the values themselves (e.g.
+     * parsing a JSON string) will not give the same schema as they would for real rows.
+     * @return the transformed synthetic record, or null if it was dropped by one of the transformations
+     */
+    public SourceRecord probeTransformedRecord() throws ConnectException, SQLException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException, ClassNotFoundException {
+        Schema schema = probeQuerySchema();
+        SourceRecord record = new SourceRecord(Map.of(), Map.of(), "", schema, placeholderValue(schema));
+        return getTransformationChain().apply(record);
+    }
+
+    /**
+     * Returns the schema of the transformed results, or (if there are no transformed results or
+     * {@link JdbcSourceQuerier#schemaOnly} is set) the schema of {@link JdbcSourceQuerier#probeTransformedRecord()}.
+     */
+    public Schema getTransformedSchema() throws ConnectException, SQLException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException, ClassNotFoundException {
+        SourceRecord record = isSchemaOnly() ? null : peekTransformedResults();
+        if (record == null)
+            record = probeTransformedRecord();
+        return record != null ? record.valueSchema() : null;
+    }
+
+    /**
+     * @return a valid (non-null) placeholder value for the given schema, including any logical type
+     */
+    private static Object placeholderValue(Schema schema) {
+        if (Decimal.LOGICAL_NAME.equals(schema.name()))
+            return BigDecimal.ZERO.setScale(Integer.parseInt(schema.parameters().get(Decimal.SCALE_FIELD)));
+        if (org.apache.kafka.connect.data.Date.LOGICAL_NAME.equals(schema.name()) ||
+            org.apache.kafka.connect.data.Time.LOGICAL_NAME.equals(schema.name()) ||
+            org.apache.kafka.connect.data.Timestamp.LOGICAL_NAME.equals(schema.name()))
+            return new java.util.Date(0);
+
+        switch (schema.type()) {
+            case INT8:
+                return (byte) 0;
+            case INT16:
+                return (short) 0;
+            case INT32:
+                return 0;
+            case INT64:
+                return 0L;
+            case FLOAT32:
+                return 0f;
+            case FLOAT64:
+                return 0d;
+            case BOOLEAN:
+                return false;
+            case STRING:
+                return "";
+            case BYTES:
+                return new byte[0];
+            case ARRAY:
+                return List.of();
+            case MAP:
+                return Map.of();
+            case STRUCT:
+                Struct struct = new Struct(schema);
+                for (Field field : schema.fields())
+                    struct.put(field, placeholderValue(field.schema()));
+                return struct;
+            default:
+                // all of the types are handled above
+                throw new IllegalStateException("Unknown Connect Schema Type: " + schema.type());
+        }
+    }
+
+    private transient List<SourceRecord> transformedResults;
+    /**
+     * Returns the query results after they have been passed through the {@link JdbcSourceQuerier#getTransformationChain()}.
+     * The transformations are only applied on the first call; later calls return the same results until the query
+     * results are fetched again or the transformations are changed.
+     */
+    public List<SourceRecord> getTransformedResults() throws ConnectException, SQLException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException, ClassNotFoundException {
+        if (transformedResults == null) {
+            List<SourceRecord> results = getQueryResults();
+            long start = System.nanoTime();
+            transformedResults = applyTransformations(results);
+            if (executionProfile != null)
+                executionProfile.addPhase(QueryProfile.PHASE_TRANSFORM, System.nanoTime() - start);
         }
         return transformedResults;
     }
 
+    /**
+     * Applies the transformations to the given records, either serially using the
+     * {@link JdbcSourceQuerier#getTransformationChain()} or split between
+     * {@link JdbcSourceQuerier#transformationParallelism} workers.
+     */
+    private List<SourceRecord> applyTransformations(List<SourceRecord> records) throws InstantiationException,
+        IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException,
+        SecurityException, ClassNotFoundException
+    {
+        int workers = Math.min(getTransformationParallelism(), records.size() / MIN_RECORDS_PER_TRANSFORMATION_WORKER);
+        if (workers <= 1 || transformations == null || transformations.isEmpty())
+            return getTransformationChain().apply(records);
+
+        int chunkSize = (records.size() + workers - 1) / workers;
+        List<Future<List<SourceRecord>>> chunks = new ArrayList<>(workers);
+        try {
+            // the first chunk is transformed on this thread by the querier's own chain, the others each by a new chain
+            for (int start = chunkSize; start < records.size(); start += chunkSize) {
+                List<SourceRecord> chunk = records.subList(start, Math.min(start + chunkSize, records.size()));
+                FutureTask<List<SourceRecord>> task = new FutureTask<>(() -> {
+                    try (TransformationChain chain = new TransformationChain(transformations, transformationInstanceCache,
+                            meterRegistry, metricTags())) {
+                        return chain.apply(chunk);
+                    }
+                });
+                transformationExecutor.execute(task);
+                chunks.add(task);
+            }
+            List<SourceRecord> results = new ArrayList<>(records.size());
+            results.addAll(getTransformationChain().apply(records.subList(0, chunkSize)));
+            for (Future<List<SourceRecord>> chunk : chunks)
+                results.addAll(chunk.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectException("Interrupted while transforming the records", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new ConnectException("Failed to transform the records", e.getCause());
+        } finally {
+            // do not leave any workers running (e.g. if another chunk failed)
+            chunks.forEach(chunk -> chunk.cancel(true));
+        }
+    }
+
     public SourceRecord peekTransformedResults() throws ConnectException, SQLException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException, ClassNotFoundException {
         if (getTransformedResults().size() > 0)
             return getTransformedResults().get(0);
@@ -323,6 +1155,18 @@ public class JdbcSourceQuerier {
         return transformation;
     }
 
+    /**
+     * Closes the {@link JdbcSourceQuerier#connectorDialect} including any connections that it may still have open, and
+     * all transformation instances in the {@link JdbcSourceQuerier#getTransformationChain()}. Connections borrowed from
+     * the {@link JdbcSourceQuerier#pooledDataSource} are not affected.
+     */
+    @Override
+    public void close() {
+        closeTransformationChain();
+        if (connectorDialect != null)
+            connectorDialect.close();
+    }
+
     public JdbcSourceQuerier() {
         setRowsLimit(MAX_ROWS_LIMIT);
     }
@@ -0,0 +1,182 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The execution profile of a single run of a {@link JdbcSourceQuerier}'s query (see
+ * {@link JdbcSourceQuerier#setProfiling(boolean)}): the final SQL which was generated by the connector (including its
+ * filter, order and limit suffixes) with its parameter values, the wall time of each phase, the number of rows and the
+ * database's estimated plan for the query.
+ */
+public class QueryProfile {
+
+    public static final String PHASE_CONNECT = "connect";
+    public static final String PHASE_PREPARE = "prepare";
+    public static final String PHASE_EXECUTE = "execute";
+    public static final String PHASE_FETCH = "fetch";
+    public static final String PHASE_TRANSFORM = "transform";
+    public static final String PHASE_EXPLAIN = "explain";
+
+    private String sql;
+    public String getSql() {
+        return sql;
+    }
+
+    // The values of the query's parameters (e.g. the offset of the timestamp and incrementing columns) by index
+    private final Map<Integer, Object> parameters = new TreeMap<>();
+    public Map<Integer, Object> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    // The setter calls on the prepared statement, so that they can be replayed on the statement which explains it
+    private final List<Object[]> parameterCalls = new ArrayList<>();
+
+    private String plan;
+    public String getPlan() {
+        return plan;
+    }
+    public void setPlan(String plan) {
+        this.plan = plan;
+    }
+
+    // e.g. "xml" or "json", depending on the dialect
+    private String planFormat;
+    public String getPlanFormat() {
+        return planFormat;
+    }
+    public void setPlanFormat(String planFormat) {
+        this.planFormat = planFormat;
+    }
+
+    // Why the plan could not be explained (e.g. not supported by the database or missing permissions), if it was not
+    private String planError;
+    public String getPlanError() {
+        return planError;
+    }
+    public void setPlanError(String planError) {
+        this.planError = planError;
+    }
+
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+    public Map<String, Long> getPhaseNanos() {
+        return Collections.unmodifiableMap(phaseNanos);
+    }
+
+    private long rows;
+    public long getRows() {
+        return rows;
+    }
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Adds the given time to the phase (a phase can be recorded more than once, e.g. when transforming again).
+     * @param phase
+     * @param nanos
+     */
+    public void addPhase(String phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * @return the wall time of each phase in milliseconds (rounded to two decimals), in the order they were recorded
+     */
+    public Map<String, Double> getPhaseMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        phaseNanos.forEach((phase, nanos) -> millis.put(phase, toMillis(nanos)));
+        return millis;
+    }
+
+    public double getTotalMillis() {
+        return toMillis(phaseNanos.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    /**
+     * @return the number of rows read per second while fetching the results, or 0 if none were fetched
+     */
+    public long getRowsPerSecond() {
+        long fetchNanos = phaseNanos.getOrDefault(PHASE_FETCH, 0L);
+        if (rows == 0 || fetchNanos == 0)
+            return 0;
+        return Math.round(rows * 1_000_000_000d / fetchNanos);
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10_000d) / 100d;
+    }
+
+    /**
+     * Wraps the connection so that the SQL of the statements which are prepared from it, and the parameters which are
+     * then set on them, are captured by this profile. Everything else is passed through to the connection as-is.
+     * @param connection
+     * @return the wrapped connection, which should not be closed separately from the given connection
+     */
+    public Connection capture(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (method.getName().equals("prepareStatement") && args != null && args[0] instanceof String) {
+                    sql = (String) args[0];
+                    parameters.clear();
+                    parameterCalls.clear();
+                    return capture((PreparedStatement) result);
+                }
+                return result;
+            });
+    }
+
+    private PreparedStatement capture(PreparedStatement statement) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+            new Class<?>[] { PreparedStatement.class },
+            (proxy, method, args) -> {
+                if (method.getName().startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                    && method.getDeclaringClass() == PreparedStatement.class)
+                {
+                    parameters.put((Integer) args[0], args[1]);
+                    parameterCalls.add(new Object[] { method, args });
+                } else if (method.getName().equals("clearParameters")) {
+                    parameters.clear();
+                    parameterCalls.clear();
+                }
+                return invoke(statement, method, args);
+            });
+    }
+
+    /**
+     * Sets the same parameters on the given statement as were set on the captured statement.
+     * @param statement
+     * @throws SQLException
+     */
+    public void replayParameters(PreparedStatement statement) throws SQLException {
+        for (Object[] call : parameterCalls) {
+            try {
+                invoke(statement, (Method) call[0], (Object[]) call[1]);
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new SQLException("Failed to set the query's parameters", e);
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.Transformation;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * An ordered chain of configured {@link Transformation} instances built once from a list of
+ * {@link TransformationDefinition}s, which can then be applied to any number of records. Since most transformations
+ * are not thread-safe, a chain should only be used by one thread at a time.
+ */
+public class TransformationChain implements AutoCloseable {
+
+    public static final String METRIC_TRANSFORMATION_APPLY = "querier.transformation.apply";
+    public static final String METRIC_TRANSFORMATION_DROPPED = "querier.transformation.dropped";
+    public static final String TAG_TRANSFORMATION = "transformation";
+
+    private final List<Transformation<SourceRecord>> transformations;
+    public List<Transformation<SourceRecord>> getTransformations() {
+        return transformations;
+    }
+
+    // Per-transformation timers and counters of dropped records (in the same order), or null if nothing is recorded
+    private final Timer[] applyTimers;
+    private final Counter[] droppedCounters;
+    private final Clock clock;
+
+    // Where the transformations were borrowed from and should be released to when closing, or null if they were built
+    private final TransformationInstanceCache instanceCache;
+
+    public TransformationChain(List<TransformationDefinition> definitions)
+        throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException,
+        NoSuchMethodException, SecurityException, ClassNotFoundException
+    {
+        this(definitions, null, null, null);
+    }
+
+    public TransformationChain(List<TransformationDefinition> definitions, MeterRegistry meterRegistry, Tags tags)
+        throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException,
+        NoSuchMethodException, SecurityException, ClassNotFoundException
+    {
+        this(definitions, null, meterRegistry, tags);
+    }
+
+    /**
+     * Builds the chain and, if a registry is given, records the time each transformation takes to apply and the number
+     * of records it drops, tagged with the transformation's class name as well as the given tags.
+     * @param definitions
+     * @param instanceCache cache to borrow already configured instances from (and release them to when the chain is
+     *                      closed), or null to build and configure new instances
+     * @param meterRegistry registry to record the metrics in, or null to not record anything
+     * @param tags extra tags for all metrics (e.g. the datasource), or null for none
+     */
+    public TransformationChain(List<TransformationDefinition> definitions, TransformationInstanceCache instanceCache,
+        MeterRegistry meterRegistry, Tags tags)
+        throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException,
+        NoSuchMethodException, SecurityException, ClassNotFoundException
+    {
+        this.instanceCache = instanceCache;
+        List<Transformation<SourceRecord>> built = new ArrayList<>();
+        try {
+            if (definitions != null) {
+                for (TransformationDefinition definition : definitions) {
+                    built.add(instanceCache != null ?
+                        instanceCache.borrow(definition) :
+                        JdbcSourceQuerier.buildTransformationInstance(definition));
+                }
+            }
+        } catch (Exception e) {
+            // do not leak the transformations which were already built and configured
+            built.forEach(this::close);
+            throw e;
+        }
+        this.transformations = Collections.unmodifiableList(built);
+
+        if (meterRegistry != null) {
+            clock = meterRegistry.config().clock();
+            // look the meters up once here instead of for every record
+            applyTimers = new Timer[built.size()];
+            droppedCounters = new Counter[built.size()];
+            for (int i = 0; i < built.size(); i++) {
+                Tags transformationTags = Tags.concat(tags, TAG_TRANSFORMATION, definitions.get(i).className);
+                applyTimers[i] = Timer.builder(METRIC_TRANSFORMATION_APPLY).tags(transformationTags).register(meterRegistry);
+                droppedCounters[i] = Counter.builder(METRIC_TRANSFORMATION_DROPPED).tags(transformationTags).register(meterRegistry);
+            }
+        } else {
+            clock = null;
+            applyTimers = null;
+            droppedCounters = null;
+        }
+    }
+
+    /**
+     * Applies all transformations in the chain to the given record.
+     * @param record
+     * @return the transformed record, or null if the record was dropped by one of the transformations
+     */
+    public SourceRecord apply(SourceRecord record) {
+        if (applyTimers != null)
+            return applyTimed(record);
+        for (Transformation<SourceRecord> transformation : transformations) {
+            if (record == null)
+                break;
+            record = transformation.apply(record);
+        }
+        return record;
+    }
+
+    private SourceRecord applyTimed(SourceRecord record) {
+        for (int i = 0; i < applyTimers.length && record != null; i++) {
+            long start = clock.monotonicTime();
+            record = transformations.get(i).apply(record);
+            applyTimers[i].record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+            if (record == null)
+                droppedCounters[i].increment();
+        }
+        return record;
+    }
+
+    /**
+     * Applies all transformations in the chain to each of the given records, in order.
+     * @param records
+     * @return the transformed records, excluding any which were dropped by one of the transformations
+     */
+    public List<SourceRecord> apply(List<SourceRecord> records) {
+        List<SourceRecord> results = new ArrayList<>(records.size());
+        for (SourceRecord record : records) {
+            SourceRecord transformed = apply(record);
+            if (transformed != null)
+                results.add(transformed);
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        transformations.forEach(this::close);
+    }
+
+    private void close(Transformation<SourceRecord> transformation) {
+        if (instanceCache != null)
+            instanceCache.release(transformation);
+        else
+            transformation.close();
+    }
+
+}
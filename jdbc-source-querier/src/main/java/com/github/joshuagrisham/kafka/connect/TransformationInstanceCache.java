@@ -0,0 +1,211 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.Transformation;
+
+/**
+ * A thread-safe cache of already built and configured {@link Transformation} instances, keyed by their class name and a
+ * hash of their config, so that transformations with expensive configuration (e.g. Kryptonite's CipherField which parses
+ * its Tink keysets and initialises its ciphers) do not need to be configured again for every new
+ * {@link TransformationChain}.
+ * <p>
+ * Since most transformations are not thread-safe, each instance is only used by one chain at a time: a chain borrows
+ * its instances when it is built and releases them back to the cache when it is closed. Key rotation (or any other
+ * change outside of the config itself) should be followed by {@link #invalidate()} so that new instances are configured.
+ */
+public class TransformationInstanceCache {
+
+    public static final int DEFAULT_MAX_IDLE_PER_CONFIG = 4;
+
+    // Idle instances by key, most recently released first
+    private final Map<String, Deque<Transformation<SourceRecord>>> idle = new HashMap<>();
+    // Instances which are currently borrowed by a chain
+    private final Map<Transformation<SourceRecord>, Lease> borrowed = new IdentityHashMap<>();
+
+    private static class Lease {
+        private final String key;
+        // set if the cache was invalidated while the instance was borrowed, so it should be closed instead of reused
+        private boolean invalidated;
+
+        private Lease(String key) {
+            this.key = key;
+        }
+    }
+
+    private final int maxIdlePerConfig;
+    public int getMaxIdlePerConfig() {
+        return maxIdlePerConfig;
+    }
+
+    private final AtomicLong hitCount = new AtomicLong();
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    private final AtomicLong missCount = new AtomicLong();
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public TransformationInstanceCache() {
+        this(DEFAULT_MAX_IDLE_PER_CONFIG);
+    }
+
+    /**
+     * @param maxIdlePerConfig maximum number of idle instances to keep for each class and config (i.e. how many chains
+     *                         with the same transformation can be built at the same time without configuring a new one)
+     */
+    public TransformationInstanceCache(int maxIdlePerConfig) {
+        if (maxIdlePerConfig < 1)
+            throw new IllegalArgumentException("maxIdlePerConfig must be at least 1");
+        this.maxIdlePerConfig = maxIdlePerConfig;
+    }
+
+    /**
+     * Returns an idle instance with the same class and config as the given definition if there is one, otherwise
+     * builds and configures a new one. Either way it should be given back with {@link #release(Transformation)}.
+     * @param definition
+     * @return the configured instance, which is not used by anything else until it is released
+     */
+    public Transformation<SourceRecord> borrow(TransformationDefinition definition)
+        throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException,
+        NoSuchMethodException, SecurityException, ClassNotFoundException
+    {
+        String key = key(definition);
+        synchronized (this) {
+            Deque<Transformation<SourceRecord>> instances = idle.get(key);
+            if (instances != null && !instances.isEmpty()) {
+                Transformation<SourceRecord> transformation = instances.pop();
+                borrowed.put(transformation, new Lease(key));
+                hitCount.incrementAndGet();
+                return transformation;
+            }
+        }
+        missCount.incrementAndGet();
+        // configured outside of the lock since this is the expensive part
+        Transformation<SourceRecord> transformation = JdbcSourceQuerier.buildTransformationInstance(definition);
+        synchronized (this) {
+            borrowed.put(transformation, new Lease(key));
+        }
+        return transformation;
+    }
+
+    /**
+     * Gives back an instance which was borrowed from this cache so that it can be reused, or closes it if the cache has
+     * been invalidated since it was borrowed or there are already enough idle instances with the same config.
+     * @param transformation
+     */
+    public void release(Transformation<SourceRecord> transformation) {
+        synchronized (this) {
+            Lease lease = borrowed.remove(transformation);
+            if (lease != null && !lease.invalidated) {
+                Deque<Transformation<SourceRecord>> instances = idle.computeIfAbsent(lease.key, k -> new ArrayDeque<>());
+                if (instances.size() < maxIdlePerConfig) {
+                    instances.push(transformation);
+                    return;
+                }
+            }
+        }
+        transformation.close();
+    }
+
+    /**
+     * Closes all idle instances, and all borrowed instances once they are released, so that every transformation is
+     * configured again the next time it is borrowed (e.g. after its keys have been rotated).
+     */
+    public void invalidate() {
+        invalidate(null);
+    }
+
+    /**
+     * Same as {@link #invalidate()} but only for the instances of the given class.
+     * @param className class name of the transformations to invalidate, or null for all of them
+     */
+    public void invalidate(String className) {
+        List<Transformation<SourceRecord>> closing = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Deque<Transformation<SourceRecord>>>> entries = idle.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, Deque<Transformation<SourceRecord>>> entry = entries.next();
+                if (className == null || isKeyOf(entry.getKey(), className)) {
+                    closing.addAll(entry.getValue());
+                    entries.remove();
+                }
+            }
+            for (Lease lease : borrowed.values()) {
+                if (className == null || isKeyOf(lease.key, className))
+                    lease.invalidated = true;
+            }
+        }
+        closing.forEach(Transformation::close);
+    }
+
+    /**
+     * @return the number of idle instances in the cache
+     */
+    public synchronized int size() {
+        return idle.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    private static boolean isKeyOf(String key, String className) {
+        return key.length() > className.length() && key.startsWith(className) && key.charAt(className.length()) == '@';
+    }
+
+    /**
+     * The key is the class name and a hash of the config (sorted by name), so that the config itself (which can contain
+     * key material) is not kept in the cache's keys.
+     */
+    private static String key(TransformationDefinition definition) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (definition.config != null) {
+                for (Map.Entry<String, ?> entry : new TreeMap<String, Object>(definition.config).entrySet()) {
+                    update(digest, entry.getKey());
+                    update(digest, entry.getValue());
+                }
+            }
+            return definition.className + "@" + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Adds the config value to the hash, tagged with its kind and prefixed with its length, so that no two different
+     * configs (e.g. a value containing a separator, or a list and its string form) are hashed from the same bytes.
+     */
+    private static void update(MessageDigest digest, Object value) {
+        if (value == null) {
+            digest.update((byte) 'n');
+        } else if (value instanceof Collection<?> values) {
+            digest.update((byte) 'l');
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(values.size()).array());
+            for (Object element : values)
+                update(digest, element);
+        } else {
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) 's');
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+            digest.update(bytes);
+        }
+    }
+
+}
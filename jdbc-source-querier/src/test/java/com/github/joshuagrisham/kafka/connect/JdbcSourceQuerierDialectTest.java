@@ -0,0 +1,125 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.joshuagrisham.kafka.connect.JdbcSourceQuerier.Dialect;
+
+/**
+ * Tests the SQL which each dialect appends to limit (and order) the preview query, both as text and by running it on
+ * an in-memory H2 database in the compatibility mode of the dialect's database.
+ */
+public class JdbcSourceQuerierDialectTest {
+
+    private static final int ROWS_LIMIT = 5;
+
+    // The suffix of a query which is not already ordered by its timestamp or incrementing columns
+    private static final Map<Dialect, String> NO_FILTER_SUFFIXES = Map.ofEntries(
+        Map.entry(Dialect.SQLSERVER, " ORDER BY 1 OFFSET 0 ROWS FETCH NEXT 5 ROWS ONLY"),
+        Map.entry(Dialect.POSTGRES, " LIMIT 5"),
+        Map.entry(Dialect.ORACLE, " FETCH FIRST 5 ROWS ONLY"),
+        Map.entry(Dialect.MYSQL, " LIMIT 5"),
+        Map.entry(Dialect.DB2, " FETCH FIRST 5 ROWS ONLY"),
+        Map.entry(Dialect.SQLITE, " LIMIT 5"),
+        Map.entry(Dialect.DERBY, " FETCH FIRST 5 ROWS ONLY"),
+        Map.entry(Dialect.SYBASE, ""), // limited with Statement#setMaxRows instead
+        Map.entry(Dialect.SAPHANA, " LIMIT 5"),
+        Map.entry(Dialect.VERTICA, " LIMIT 5"),
+        Map.entry(Dialect.GENERIC, " FETCH FIRST 5 ROWS ONLY")
+    );
+
+    // The H2 compatibility mode closest to each dialect's database (REGULAR for the ones H2 does not have a mode for)
+    private static final Map<Dialect, String> H2_MODES = Map.ofEntries(
+        Map.entry(Dialect.SQLSERVER, "MSSQLServer"),
+        Map.entry(Dialect.POSTGRES, "PostgreSQL"),
+        Map.entry(Dialect.ORACLE, "Oracle"),
+        Map.entry(Dialect.MYSQL, "MySQL"),
+        Map.entry(Dialect.DB2, "DB2"),
+        Map.entry(Dialect.SQLITE, "REGULAR"),
+        Map.entry(Dialect.DERBY, "Derby"),
+        Map.entry(Dialect.SYBASE, "REGULAR"),
+        Map.entry(Dialect.SAPHANA, "REGULAR"),
+        Map.entry(Dialect.VERTICA, "REGULAR"),
+        Map.entry(Dialect.GENERIC, "REGULAR")
+    );
+
+    @Test
+    public void everyDialectIsTested() {
+        assertEquals(Dialect.values().length, NO_FILTER_SUFFIXES.size());
+        assertEquals(Dialect.values().length, H2_MODES.size());
+    }
+
+    @Test
+    public void noFilterSuffix() {
+        for (Dialect dialect : Dialect.values())
+            assertEquals(NO_FILTER_SUFFIXES.get(dialect), dialect.querySuffix(ROWS_LIMIT, false), dialect.name());
+    }
+
+    @Test
+    public void incrementalSuffixIsOnlyTheLimit() {
+        // the connector already orders incremental queries by their timestamp or incrementing columns
+        assertEquals(" OFFSET 0 ROWS FETCH NEXT 5 ROWS ONLY", Dialect.SQLSERVER.querySuffix(ROWS_LIMIT, true));
+        for (Dialect dialect : Dialect.values()) {
+            if (dialect != Dialect.SQLSERVER)
+                assertEquals(NO_FILTER_SUFFIXES.get(dialect), dialect.querySuffix(ROWS_LIMIT, true), dialect.name());
+        }
+    }
+
+    @Test
+    public void noSuffixWithoutLimit() {
+        // only the stream limit can be 0 (no limit), the list limit is always at least 1
+        for (Dialect dialect : Dialect.values())
+            assertEquals("", dialect.querySuffix(0, false), dialect.name());
+    }
+
+    @Test
+    public void suffixLimitsRowsInCompatibilityMode() throws SQLException {
+        for (Dialect dialect : Dialect.values()) {
+            if (dialect.limitSuffixFormat == null)
+                continue;
+            List<Integer> ids = queryIds(dialect, "SELECT id, name FROM items" + dialect.querySuffix(ROWS_LIMIT, false));
+            assertEquals(ROWS_LIMIT, ids.size(), dialect.name());
+        }
+    }
+
+    @Test
+    public void sqlServerPreviewIsDeterministic() throws SQLException {
+        // rows are inserted out of order, so only the ORDER BY gives the lowest ids
+        String sql = "SELECT id, name FROM items" + Dialect.SQLSERVER.querySuffix(ROWS_LIMIT, false);
+        assertEquals(List.of(1, 2, 3, 4, 5), queryIds(Dialect.SQLSERVER, sql));
+        assertEquals(queryIds(Dialect.SQLSERVER, sql), queryIds(Dialect.SQLSERVER, sql));
+    }
+
+    /**
+     * Runs the query on a new in-memory database (in the dialect's compatibility mode) with a table of 20 items.
+     * @return the ids of the returned rows
+     */
+    private static List<Integer> queryIds(Dialect dialect, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:;MODE=" + H2_MODES.get(dialect));
+             Statement statement = connection.createStatement())
+        {
+            statement.execute("CREATE TABLE items (id INT, name VARCHAR(20))");
+            for (int i = 0; i < 20; i++) {
+                int id = (i * 7) % 20 + 1;
+                statement.execute("INSERT INTO items VALUES (" + id + ", 'item " + id + "')");
+            }
+            List<Integer> ids = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery(sql)) {
+                while (resultSet.next())
+                    ids.add(resultSet.getInt(1));
+            }
+            return ids;
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.InsertField;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link JdbcSourceQuerier} which do not need a database; query results are set directly instead.
+ */
+public class JdbcSourceQuerierTest {
+
+    private static final Schema ROW_SCHEMA = SchemaBuilder.struct()
+        .field("id", Schema.INT32_SCHEMA)
+        .field("name", Schema.STRING_SCHEMA)
+        .build();
+
+    private static final int ROWS = 200;
+
+    /**
+     * Drops the records whose id is a multiple of "modulo" or is within ["from", "to").
+     */
+    public static class DropIds implements Transformation<SourceRecord> {
+        private int modulo;
+        private int from;
+        private int to;
+
+        @Override
+        public void configure(Map<String, ?> configs) {
+            modulo = Integer.parseInt((String) configs.get("modulo"));
+            from = Integer.parseInt((String) configs.get("from"));
+            to = Integer.parseInt((String) configs.get("to"));
+        }
+
+        @Override
+        public SourceRecord apply(SourceRecord record) {
+            int id = ((Struct) record.value()).getInt32("id");
+            return id % modulo == 0 || (id >= from && id < to) ? null : record;
+        }
+
+        @Override
+        public ConfigDef config() {
+            return new ConfigDef();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Fails on the record with the configured "id".
+     */
+    public static class FailOnId implements Transformation<SourceRecord> {
+        private int id;
+
+        @Override
+        public void configure(Map<String, ?> configs) {
+            id = Integer.parseInt((String) configs.get("id"));
+        }
+
+        @Override
+        public SourceRecord apply(SourceRecord record) {
+            if (((Struct) record.value()).getInt32("id") == id)
+                throw new DataException("Failed on id " + id);
+            return record;
+        }
+
+        @Override
+        public ConfigDef config() {
+            return new ConfigDef();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static List<SourceRecord> rows() {
+        List<SourceRecord> rows = new ArrayList<>(ROWS);
+        for (int id = 0; id < ROWS; id++) {
+            Struct value = new Struct(ROW_SCHEMA).put("id", id).put("name", "row " + id);
+            rows.add(new SourceRecord(Map.of(), Map.of("id", id), "topic", null, ROW_SCHEMA, value));
+        }
+        return rows;
+    }
+
+    private static List<TransformationDefinition> chain(TransformationDefinition... definitions) {
+        List<TransformationDefinition> chain = new ArrayList<>(List.of(
+            new TransformationDefinition(InsertField.Value.class.getName(),
+                Map.of("static.field", "source", "static.value", "test"))));
+        chain.addAll(List.of(definitions));
+        return chain;
+    }
+
+    private static List<SourceRecord> transform(List<TransformationDefinition> transformations, int parallelism,
+        ExecutorService executor) throws Exception
+    {
+        try (JdbcSourceQuerier querier = new JdbcSourceQuerier()) {
+            querier.setTransformations(transformations);
+            querier.setTransformationParallelism(parallelism);
+            querier.setTransformationExecutor(executor);
+            querier.setQueryResults(rows());
+            return querier.getTransformedResults();
+        }
+    }
+
+    private static void assertSameAsSerial(List<TransformationDefinition> transformations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<SourceRecord> serial = transform(transformations, 1, executor);
+            for (int parallelism : new int[] { 2, 3, 4, 7 }) {
+                List<SourceRecord> parallel = transform(transformations, parallelism, executor);
+                assertEquals(serial.size(), parallel.size(), "parallelism " + parallelism);
+                for (int i = 0; i < serial.size(); i++)
+                    assertEquals(serial.get(i), parallel.get(i), "parallelism " + parallelism + ", record " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void parallelTransformationsAreTheSameAsSerial() throws Exception {
+        assertSameAsSerial(chain());
+    }
+
+    @Test
+    public void parallelTransformationsDropTheSameRecords() throws Exception {
+        // some records of every chunk, and all records of the second chunk (with parallelism 4), are dropped
+        assertSameAsSerial(chain(new TransformationDefinition(DropIds.class.getName(),
+            Map.of("modulo", "3", "from", "50", "to", "100"))));
+        // every record is dropped
+        assertSameAsSerial(chain(new TransformationDefinition(DropIds.class.getName(),
+            Map.of("modulo", "1", "from", "0", "to", "0"))));
+    }
+
+    @Test
+    public void parallelTransformationsFailTheSameAsSerial() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // the first record is transformed on the calling thread, the last one by a worker
+            for (int failingId : new int[] { 0, ROWS - 1 }) {
+                List<TransformationDefinition> transformations = chain(
+                    new TransformationDefinition(FailOnId.class.getName(), Map.of("id", String.valueOf(failingId))));
+                for (int parallelism : new int[] { 1, 4 }) {
+                    DataException e = assertThrows(DataException.class,
+                        () -> transform(transformations, parallelism, executor));
+                    assertEquals("Failed on id " + failingId, e.getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void listRowsLimitIsAlwaysLimited() {
+        JdbcSourceQuerier querier = new JdbcSourceQuerier();
+        assertEquals(JdbcSourceQuerier.MAX_ROWS_LIMIT, querier.getRowsLimit());
+        // fetchQueryResults holds every row in memory, so there is no "no limit" value like for streaming
+        assertThrows(IllegalArgumentException.class, () -> querier.setRowsLimit(0));
+        assertThrows(IllegalArgumentException.class, () -> querier.setRowsLimit(-1));
+        assertThrows(IllegalArgumentException.class, () -> querier.setRowsLimit(JdbcSourceQuerier.MAX_ROWS_LIMIT + 1));
+        querier.setRowsLimit(1);
+        assertEquals(1, querier.getRowsLimit());
+    }
+
+    @Test
+    public void streamRowsLimitCanBeUnlimited() {
+        JdbcSourceQuerier querier = new JdbcSourceQuerier();
+        querier.setStreamRowsLimit(0);
+        querier.setStreamRowsLimit(JdbcSourceQuerier.MAX_ROWS_LIMIT * 1000L);
+        assertEquals(JdbcSourceQuerier.MAX_ROWS_LIMIT * 1000L, querier.getStreamRowsLimit());
+        assertThrows(IllegalArgumentException.class, () -> querier.setStreamRowsLimit(-1));
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.github.joshuagrisham.kafka.connect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.transforms.Transformation;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the {@link TransformationInstanceCache} only reuses instances which were configured with the same config.
+ */
+public class TransformationInstanceCacheTest {
+
+    /**
+     * Keeps the config it was configured with.
+     */
+    public static class ConfiguredWith implements Transformation<SourceRecord> {
+        private Map<String, ?> config;
+
+        @Override
+        public void configure(Map<String, ?> configs) {
+            config = configs;
+        }
+
+        @Override
+        public SourceRecord apply(SourceRecord record) {
+            return record;
+        }
+
+        @Override
+        public ConfigDef config() {
+            return new ConfigDef();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static TransformationDefinition definition(Map<String, ?> config) {
+        return new TransformationDefinition(ConfiguredWith.class.getName(), config);
+    }
+
+    /**
+     * Borrows (and releases) an instance for the first config, and then asserts that the instance borrowed for the
+     * second config was configured with the second config.
+     * @return if the second instance is the same as the first one
+     */
+    private static boolean reused(Map<String, ?> first, Map<String, ?> second) throws Exception {
+        TransformationInstanceCache cache = new TransformationInstanceCache();
+        Transformation<SourceRecord> firstInstance = cache.borrow(definition(first));
+        cache.release(firstInstance);
+        Transformation<SourceRecord> secondInstance = cache.borrow(definition(second));
+        assertEquals(second, ((ConfiguredWith) secondInstance).config);
+        return firstInstance == secondInstance;
+    }
+
+    @Test
+    public void sameConfigIsReused() throws Exception {
+        // in any order
+        assertTrue(reused(Map.of("a", "1", "b", "2"), Map.of("b", "2", "a", "1")));
+    }
+
+    @Test
+    public void differentConfigsAreNotReused() throws Exception {
+        assertTrue(!reused(Map.of("a", "1"), Map.of("a", "2")));
+        // a value which contains what would otherwise separate the entries
+        assertTrue(!reused(Map.of("a", "1\nb=2"), Map.of("a", "1", "b", "2")));
+        assertTrue(!reused(Map.of("a", "1=b"), Map.of("a=1", "b")));
+        // a list and its string form
+        assertTrue(!reused(Map.of("a", List.of("x", "y")), Map.of("a", "[x, y]")));
+        assertTrue(!reused(Map.of("a", List.of("x, y")), Map.of("a", List.of("x", "y"))));
+    }
+
+}